@@ -0,0 +1,57 @@
+package com.example.javalabaip;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Runs every benchmark and writes all results to one JSON file. Benchmarks over shared state are repeated at each
+// thread count so contention shows up as a curve; the JSON records the thread count of every result.
+public final class BenchmarkRunner {
+
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final String CONTENDED = "CacheManagerBenchmark|RequestCounterBenchmark";
+
+    private BenchmarkRunner() {
+    }
+
+    // Arguments: result file (default jmh-result.json) and a regex over benchmark names (default all).
+    public static void main(String[] args) throws RunnerException, IOException {
+        String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+        String include = args.length > 1 ? args[1] : ".*";
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : THREADS) {
+            results.addAll(run(new OptionsBuilder()
+                    .include("^(?=.*(?:" + include + "))(?=.*(?:" + CONTENDED + "))")
+                    .threads(threads)));
+        }
+        results.addAll(run(new OptionsBuilder()
+                .include(include)
+                .exclude(CONTENDED)));
+
+        try (PrintStream out = new PrintStream(resultFile, StandardCharsets.UTF_8)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.printf("%d results written to %s%n", results.size(), resultFile);
+    }
+
+    private static Collection<RunResult> run(ChainedOptionsBuilder options) throws RunnerException {
+        try {
+            return new Runner(options.shouldFailOnError(true).build()).run();
+        } catch (NoBenchmarksException e) {
+            return List.of();
+        }
+    }
+}
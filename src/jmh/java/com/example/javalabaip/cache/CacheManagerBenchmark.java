@@ -0,0 +1,69 @@
+package com.example.javalabaip.cache;
+
+import com.example.javalabaip.config.CacheProperties;
+import com.example.javalabaip.dto.LocationResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One CacheManager shared by all benchmark threads, as in the application.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheManagerBenchmark {
+
+    private static final int LOCATIONS = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final String USERNAME = "benchmark";
+
+    private CacheManager cacheManager;
+    private LocationResponseDto[] locations;
+
+    @Setup
+    public void setUp() {
+        cacheManager = new CacheManager(new CacheProperties());
+        locations = new LocationResponseDto[LOCATIONS];
+        for (int i = 0; i < LOCATIONS; i++) {
+            locations[i] = new LocationResponseDto((long) i, "10.0." + (i >> 8) + "." + (i & 255),
+                    "Minsk", "Belarus", "Europe", 53.9, 27.5667, "Europe/Minsk");
+            cacheManager.putLocation((long) i, locations[i]);
+        }
+        for (int after = 0; after < LOCATIONS; after += PAGE_SIZE) {
+            cacheManager.putLocationList(CacheManager.pageKey(after, PAGE_SIZE),
+                    List.of(Arrays.copyOfRange(locations, after, after + PAGE_SIZE)));
+        }
+        cacheManager.putLocationList("findByUsername:" + USERNAME, List.of(locations));
+    }
+
+    @Benchmark
+    public LocationResponseDto get() {
+        return cacheManager.getLocation((long) ThreadLocalRandom.current().nextInt(LOCATIONS));
+    }
+
+    @Benchmark
+    public void put() {
+        int i = ThreadLocalRandom.current().nextInt(LOCATIONS);
+        cacheManager.putLocation((long) i, locations[i]);
+    }
+
+    // Patches the entry, the page holding it and the user's list, as a location update does.
+    @Benchmark
+    public void invalidate() {
+        cacheManager.locationUpdated(locations[ThreadLocalRandom.current().nextInt(LOCATIONS)], USERNAME);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.javalabaip.exception;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// Cost of a 404 before (stack-filled exception, stack printed) and after (stackless, message only).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    // Roughly the depth of a controller call under Tomcat, Spring MVC filters and proxies.
+    private static final int STACK_DEPTH = 120;
+
+    private final PrintStream sink = new PrintStream(OutputStream.nullOutputStream());
+    private long id;
+
+    @Benchmark
+    public int stackFilled() {
+        try {
+            return throwAt(STACK_DEPTH, () -> {
+                throw new EntityNotFoundException("Location not found with id: " + id++);
+            });
+        } catch (EntityNotFoundException e) {
+            e.printStackTrace(sink);
+            return e.getMessage().length();
+        }
+    }
+
+    @Benchmark
+    public int stackless() {
+        try {
+            return throwAt(STACK_DEPTH, () -> {
+                throw new NotFoundException("Location not found with id: " + id++);
+            });
+        } catch (NotFoundException e) {
+            sink.println(e.getMessage());
+            return e.getMessage().length();
+        }
+    }
+
+    private static int throwAt(int depth, Runnable thrower) {
+        if (depth == 0) {
+            thrower.run();
+            return 0;
+        }
+        return throwAt(depth - 1, thrower) + 1;
+    }
+}
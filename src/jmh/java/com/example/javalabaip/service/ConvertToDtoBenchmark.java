@@ -0,0 +1,45 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.model.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertToDtoBenchmark {
+
+    private Location location;
+
+    @Setup
+    public void setUp() {
+        location = new Location();
+        location.setId(1L);
+        location.setIpAddress("8.8.8.8");
+        location.setCity("Mountain View");
+        location.setCountry("United States");
+        location.setContinent("North America");
+        location.setLatitude(37.386);
+        location.setLongitude(-122.0838);
+        location.setTimezone("America/Los_Angeles");
+    }
+
+    @Benchmark
+    public LocationResponseDto convertToDto() {
+        return IpLocationService.convertToDto(location);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.javalabaip.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IpAddressValidatorBenchmark {
+
+    private static final String[] VALID = {"8.8.8.8", "192.168.1.1", "10.0.0.255", "255.255.255.255", "1.2.3.4"};
+    private static final String[] INVALID = {"256.1.1.1", "1.2.3", "1.2.3.4.5", "abc.def.ghi.jkl", "1..2.3"};
+
+    private final IpAddressValidator validator = IpAddressValidator.getInstance();
+    private int index;
+
+    @Benchmark
+    public boolean valid() {
+        return validator.isValidIpAddress(VALID[index++ % VALID.length]);
+    }
+
+    @Benchmark
+    public boolean invalid() {
+        return validator.isValidIpAddress(INVALID[index++ % INVALID.length]);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.javalabaip.aspect;
+
+import com.example.javalabaip.util.OperationMetrics;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Aspect
+@Component
+public class RequestMetricsAspect {
+
+    private final OperationMetrics operationMetrics;
+    // Built once per controller method instead of concatenated on every call.
+    private final Map<Method, String> operationNames = new ConcurrentHashMap<>();
+
+    public RequestMetricsAspect(OperationMetrics operationMetrics) {
+        this.operationMetrics = operationMetrics;
+    }
+
+    @Around("execution(* com.example.javalabaip.controller..*.*(..))")
+    public Object recordControllerMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            operationMetrics.record(operationName(joinPoint), System.nanoTime() - start);
+        }
+    }
+
+    private String operationName(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String operation = operationNames.get(method);
+        if (operation == null) {
+            operation = operationNames.computeIfAbsent(method,
+                    key -> key.getDeclaringClass().getSimpleName() + "." + key.getName());
+        }
+        return operation;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.javalabaip.aspect;
+
+import com.example.javalabaip.config.TracingProperties;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Samples whole requests: a sampled controller call collects timing spans for the service, repository and remote
+// calls it makes on the same thread and logs them as one entry. Unsampled calls cost a ThreadLocal read.
+@Aspect
+@Component
+public class TracingAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(TracingAspect.class);
+
+    private final ThreadLocal<Trace> currentTrace = new ThreadLocal<>();
+    private final double sampleRate;
+    private final int maxArgumentLength;
+    private final int maxSpans;
+
+    public TracingAspect(TracingProperties properties) {
+        this.sampleRate = properties.getSampleRate();
+        this.maxArgumentLength = properties.getMaxArgumentLength();
+        this.maxSpans = properties.getMaxSpans();
+    }
+
+    @Around("execution(* com.example.javalabaip.controller..*.*(..))")
+    public Object traceRequest(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (currentTrace.get() != null) {
+            return trace(joinPoint);
+        }
+        if (!(sampleRate > 0) || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return joinPoint.proceed();
+        }
+        Trace trace = new Trace(maxSpans);
+        currentTrace.set(trace);
+        try {
+            return trace(joinPoint);
+        } finally {
+            currentTrace.remove();
+            if (logger.isInfoEnabled()) {
+                logger.info("Трассировка запроса {}({}):{}", name(joinPoint), arguments(joinPoint.getArgs()), trace);
+            }
+        }
+    }
+
+    // Remote geo lookups live in the service package; calls fanned out to other threads show up inside their caller.
+    @Around("execution(* com.example.javalabaip.service..*.*(..)) || execution(* com.example.javalabaip.repository..*.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Trace trace = currentTrace.get();
+        if (trace == null) {
+            return joinPoint.proceed();
+        }
+        int span = trace.open(name(joinPoint));
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            trace.fail(span, e);
+            throw e;
+        } finally {
+            trace.close(span);
+        }
+    }
+
+    private static String name(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+
+    private String arguments(Object[] args) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(describe(args[i]));
+        }
+        return result.toString();
+    }
+
+    // Never renders a whole collection: a bulk request can carry tens of thousands of addresses.
+    private String describe(Object arg) {
+        if (arg instanceof Collection<?> collection) {
+            return arg.getClass().getSimpleName() + "[" + collection.size() + "]";
+        }
+        if (arg instanceof Map<?, ?> map) {
+            return arg.getClass().getSimpleName() + "[" + map.size() + "]";
+        }
+        if (arg != null && arg.getClass().isArray()) {
+            return arg.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(arg) + "]";
+        }
+        String value = String.valueOf(arg);
+        return value.length() > maxArgumentLength ? value.substring(0, maxArgumentLength) + "..." : value;
+    }
+
+    private static final class Trace {
+        private final long start = System.nanoTime();
+        private final int maxSpans;
+        private final List<Span> spans = new ArrayList<>();
+        private int depth;
+        private int dropped;
+
+        private Trace(int maxSpans) {
+            this.maxSpans = maxSpans;
+        }
+
+        // Returns -1 for spans over the limit; close and fail ignore them.
+        private int open(String name) {
+            depth++;
+            if (spans.size() >= maxSpans) {
+                dropped++;
+                return -1;
+            }
+            spans.add(new Span(name, depth, System.nanoTime()));
+            return spans.size() - 1;
+        }
+
+        private void fail(int index, Throwable e) {
+            if (index >= 0) {
+                spans.get(index).error = e.getClass().getSimpleName();
+            }
+        }
+
+        private void close(int index) {
+            depth--;
+            if (index >= 0) {
+                Span span = spans.get(index);
+                span.nanos = System.nanoTime() - span.start;
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            result.append(String.format(Locale.ROOT, " %.3f ms", (System.nanoTime() - start) / 1e6));
+            for (Span span : spans) {
+                result.append('\n').append("  ".repeat(span.depth)).append(span.name)
+                        .append(String.format(Locale.ROOT, " +%.3f ms %.3f ms", (span.start - start) / 1e6, span.nanos / 1e6));
+                if (span.error != null) {
+                    result.append(" !").append(span.error);
+                }
+            }
+            if (dropped > 0) {
+                result.append('\n').append("  ... ещё ").append(dropped).append(" вызовов");
+            }
+            return result.toString();
+        }
+    }
+
+    private static final class Span {
+        private final String name;
+        private final int depth;
+        private final long start;
+        private long nanos;
+        private String error;
+
+        private Span(String name, int depth, long start) {
+            this.name = name;
+            this.depth = depth;
+            this.start = start;
+        }
+    }
+}
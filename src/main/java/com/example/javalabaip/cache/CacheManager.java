@@ -1,30 +1,119 @@
 package com.example.javalabaip.cache;
 
+import com.example.javalabaip.config.CacheProperties;
 import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
 
 @Component
-public class CacheManager {
-    private final Map<String, List<UserDto>> userListCache = new HashMap<>();
-    private final Map<Long, UserDto> userCache = new HashMap<>();
-    private final Map<String, List<LocationResponseDto>> locationListCache = new HashMap<>();
-    private final Map<Long, LocationResponseDto> locationCache = new HashMap<>();
+public class CacheManager implements MeterBinder {
+    private static final String PAGE_PREFIX = "page:";
+
+    private final Cache<String, List<UserDto>> userListCache;
+    private final Cache<Long, UserDto> userCache;
+    private final Cache<String, List<LocationResponseDto>> locationListCache;
+    private final Cache<Long, LocationResponseDto> locationCache;
+    private final boolean incrementalLists;
+    private final int incrementalMaxListSize;
+    private final EntityVersions userVersions;
+    private final EntityVersions locationVersions;
+    // Keeps ETags from an earlier run of the application from matching versions counted again from zero.
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private enum Change {
+        CREATE, UPDATE, DELETE
+    }
+
+    public CacheManager(CacheProperties properties) {
+        this.userListCache = buildCache(properties.getUserLists());
+        this.userCache = buildCache(properties.getUsers());
+        this.locationListCache = buildCache(properties.getLocationLists());
+        this.locationCache = buildCache(properties.getLocations());
+        this.incrementalLists = properties.isIncrementalLists();
+        this.incrementalMaxListSize = properties.getIncrementalMaxListSize();
+        this.userVersions = new EntityVersions(properties.getUsers().getMaxSize(), properties.getUsers().getTtl());
+        this.locationVersions = new EntityVersions(properties.getLocations().getMaxSize(), properties.getLocations().getTtl());
+    }
+
+    // Caffeine uses W-TinyLFU admission, so one-off keys do not push hot entries out of a full region.
+    private static <K, V> Cache<K, V> buildCache(CacheProperties.Region region) {
+        return Caffeine.newBuilder()
+                .maximumSize(region.getMaxSize())
+                .expireAfterWrite(region.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    // Exposes cache.gets/cache.puts/cache.evictions per region through Micrometer.
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, userCache, "users");
+        CaffeineCacheMetrics.monitor(registry, userListCache, "user-lists");
+        CaffeineCacheMetrics.monitor(registry, locationCache, "locations");
+        CaffeineCacheMetrics.monitor(registry, locationListCache, "location-lists");
+    }
+
+    public Map<String, Double> getHitRatios() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        result.put("users", userCache.stats().hitRate());
+        result.put("user-lists", userListCache.stats().hitRate());
+        result.put("locations", locationCache.stats().hitRate());
+        result.put("location-lists", locationListCache.stats().hitRate());
+        return result;
+    }
+
+    public static String pageKey(long after, int limit) {
+        return PAGE_PREFIX + after + ":" + limit;
+    }
+
+    // Strong ETags for conditional GETs, taken from version counters rather than from the body,
+    // so a matching If-None-Match is answered without a query or serialization.
+    public String usersETag() {
+        return eTag(userVersions.collectionVersion());
+    }
+
+    public String userETag(long id) {
+        return eTag(userVersions.version(id));
+    }
+
+    public String locationsETag() {
+        return eTag(locationVersions.collectionVersion());
+    }
+
+    public String locationETag(long id) {
+        return eTag(locationVersions.version(id));
+    }
+
+    private String eTag(long version) {
+        return "\"" + instance + "-" + version + "\"";
+    }
 
     public void putUserList(String key, List<UserDto> value) {
         userListCache.put(key, value);
     }
 
     public List<UserDto> getUserList(String key) {
-        return userListCache.get(key);
+        return userListCache.getIfPresent(key);
     }
 
     public boolean containsUserListKey(String key) {
-        return userListCache.containsKey(key);
+        return userListCache.asMap().containsKey(key);
     }
 
     public void putUser(Long key, UserDto value) {
@@ -32,19 +121,19 @@ public class CacheManager {
     }
 
     public UserDto getUser(Long key) {
-        return userCache.get(key);
+        return userCache.getIfPresent(key);
     }
 
     public boolean containsUserKey(Long key) {
-        return userCache.containsKey(key);
+        return userCache.asMap().containsKey(key);
     }
 
     public void removeUser(Long key) {
-        userCache.remove(key);
+        userCache.invalidate(key);
     }
 
     public void removeUserList(String key) {
-        userListCache.remove(key);
+        userListCache.invalidate(key);
     }
 
     public void putLocationList(String key, List<LocationResponseDto> value) {
@@ -52,11 +141,11 @@ public class CacheManager {
     }
 
     public List<LocationResponseDto> getLocationList(String key) {
-        return locationListCache.get(key);
+        return locationListCache.getIfPresent(key);
     }
 
     public boolean containsLocationListKey(String key) {
-        return locationListCache.containsKey(key);
+        return locationListCache.asMap().containsKey(key);
     }
 
     public void putLocation(Long key, LocationResponseDto value) {
@@ -64,29 +153,38 @@ public class CacheManager {
     }
 
     public LocationResponseDto getLocation(Long key) {
-        return locationCache.get(key);
+        return locationCache.getIfPresent(key);
     }
 
     public boolean containsLocationKey(Long key) {
-        return locationCache.containsKey(key);
+        return locationCache.asMap().containsKey(key);
     }
 
     public void removeLocation(Long key) {
-        locationCache.remove(key);
+        locationCache.invalidate(key);
     }
 
     public void removeLocationList(String key) {
-        locationListCache.remove(key);
+        locationListCache.invalidate(key);
     }
 
+    // Every write below is called inside the writer's transaction, so entries are dropped and versions moved only
+    // once it commits: earlier, a concurrent read could still load the old rows and cache them for the whole TTL.
+    // Entries go before the version, so a read in between pairs the new body with the old tag, never the reverse.
     public void clearUserCache() {
-        userListCache.clear();
-        userCache.clear();
+        TransactionCallbacks.afterCommit(() -> {
+            userListCache.invalidateAll();
+            userCache.invalidateAll();
+            userVersions.allChanged();
+        });
     }
 
     public void clearLocationCache() {
-        locationListCache.clear();
-        locationCache.clear();
+        TransactionCallbacks.afterCommit(() -> {
+            locationListCache.invalidateAll();
+            locationCache.invalidateAll();
+            locationVersions.allChanged();
+        });
     }
 
     public void clearAllCache() {
@@ -95,14 +193,195 @@ public class CacheManager {
     }
 
     public void invalidateUserCache(Long id, String username) {
-        removeUser(id);
-        removeUserList("findByUsername:" + username);
-        removeUserList("findAll");
+        TransactionCallbacks.afterCommit(() -> {
+            evictUser(id, username);
+            userVersions.changed(List.of(id));
+        });
     }
 
+    // A new user can only appear in the tail page and in its own findByUsername key; locations are unaffected.
+    public void invalidateNewUsers(Collection<UserDto> users) {
+        List<UserDto> snapshot = List.copyOf(users);
+        TransactionCallbacks.afterCommit(() -> {
+            for (UserDto user : snapshot) {
+                removeUserList("findByUsername:" + user.getUsername());
+            }
+            removePagesCovering(userListCache, snapshot.stream().map(UserDto::getId).toList(), UserDto::getId);
+            userVersions.collectionChanged();
+        });
+    }
+
+    public void invalidateRenamedUser(Long id, String oldUsername, String newUsername) {
+        TransactionCallbacks.afterCommit(() -> {
+            evictUser(id, oldUsername);
+            removeUserList("findByUsername:" + newUsername);
+            removeLocationList("findByUsername:" + oldUsername);
+            removeLocationList("findByUsername:" + newUsername);
+            userVersions.changed(List.of(id));
+        });
+    }
+
+    // Deleting a user cascades to its locations, so those entries and the pages holding them go too.
+    public void invalidateDeletedUser(Long id, String username, Collection<Long> locationIds) {
+        List<Long> ids = List.copyOf(locationIds);
+        TransactionCallbacks.afterCommit(() -> {
+            evictUser(id, username);
+            removeLocationList("findByUsername:" + username);
+            if (!ids.isEmpty()) {
+                locationCache.invalidateAll(ids);
+                removePagesCovering(locationListCache, ids, LocationResponseDto::getId);
+            }
+            userVersions.deleted(List.of(id));
+            if (!ids.isEmpty()) {
+                locationVersions.deleted(ids);
+            }
+        });
+    }
+
+    // Drops entries at once, for callers outside a transaction; writes inside one use locationUpdated or locationDeleted.
     public void invalidateLocationCache(Long id, String username) {
         removeLocation(id);
         removeLocationList("findByUsername:" + username);
-        removeLocationList("findAll");
+        removePagesCovering(locationListCache, id, LocationResponseDto::getId);
+    }
+
+    private void evictUser(Long id, String username) {
+        removeUser(id);
+        removeUserList("findByUsername:" + username);
+        removePagesCovering(userListCache, id, UserDto::getId);
+    }
+
+    public void locationsCreated(List<LocationResponseDto> locations, String username) {
+        SortedMap<Long, LocationResponseDto> changes = new TreeMap<>();
+        locations.forEach(location -> changes.put(location.getId(), location));
+        TransactionCallbacks.afterCommit(() -> {
+            applyLocationChanges(Change.CREATE, changes, username);
+            locationVersions.collectionChanged();
+        });
+    }
+
+    public void locationUpdated(LocationResponseDto location, String username) {
+        SortedMap<Long, LocationResponseDto> changes = new TreeMap<>();
+        changes.put(location.getId(), location);
+        TransactionCallbacks.afterCommit(() -> {
+            applyLocationChanges(Change.UPDATE, changes, username);
+            locationVersions.changed(List.of(location.getId()));
+        });
+    }
+
+    public void locationDeleted(Long id, String username) {
+        SortedMap<Long, LocationResponseDto> changes = new TreeMap<>();
+        changes.put(id, null);
+        TransactionCallbacks.afterCommit(() -> {
+            applyLocationChanges(Change.DELETE, changes, username);
+            locationVersions.deleted(List.of(id));
+        });
+    }
+
+    private void applyLocationChanges(Change change, SortedMap<Long, LocationResponseDto> changes, String username) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!incrementalLists) {
+            changes.keySet().forEach(id -> invalidateLocationCache(id, username));
+            return;
+        }
+        if (change == Change.DELETE) {
+            locationCache.invalidateAll(changes.keySet());
+        } else {
+            locationCache.putAll(changes);
+        }
+        // computeIfPresent swaps in a patched copy atomically, so readers see either the old list or the new one.
+        locationListCache.asMap().computeIfPresent("findByUsername:" + username,
+                (key, list) -> patch(list, change, changes, Integer.MAX_VALUE));
+        for (String key : List.copyOf(locationListCache.asMap().keySet())) {
+            if (key.startsWith(PAGE_PREFIX)) {
+                locationListCache.asMap().computeIfPresent(key,
+                        (pageKey, page) -> patchPage(pageKey, page, change, changes));
+            }
+        }
+    }
+
+    private List<LocationResponseDto> patchPage(String key, List<LocationResponseDto> page, Change change,
+                                                SortedMap<Long, LocationResponseDto> changes) {
+        SortedMap<Long, LocationResponseDto> covered = new TreeMap<>();
+        changes.forEach((id, location) -> {
+            if (pageCovers(key, page, id, LocationResponseDto::getId)) {
+                covered.put(id, location);
+            }
+        });
+        if (covered.isEmpty()) {
+            return page;
+        }
+        int limit = Integer.parseInt(key.substring(key.lastIndexOf(':') + 1));
+        List<LocationResponseDto> patched = patch(page, change, covered, limit);
+        // A full page that lost rows would have to pull rows from the next page, so it is reloaded instead.
+        if (patched != null && page.size() >= limit && patched.size() < page.size()) {
+            return null;
+        }
+        return patched;
+    }
+
+    // Returns a patched copy of an id-ordered list, or null to drop the entry so the next read reloads it.
+    private List<LocationResponseDto> patch(List<LocationResponseDto> list, Change change,
+                                            SortedMap<Long, LocationResponseDto> changes, int capacity) {
+        if (list.size() > incrementalMaxListSize) {
+            return null;
+        }
+        List<LocationResponseDto> copy = new ArrayList<>(list);
+        for (Map.Entry<Long, LocationResponseDto> entry : changes.entrySet()) {
+            int index = indexOf(copy, entry.getKey());
+            if (change == Change.DELETE) {
+                if (index >= 0) {
+                    copy.remove(index);
+                }
+            } else if (index >= 0) {
+                copy.set(index, entry.getValue());
+            } else if (change == Change.CREATE) {
+                copy.add(-index - 1, entry.getValue());
+            } else {
+                return null;
+            }
+        }
+        return copy.size() > capacity ? null : Collections.unmodifiableList(copy);
+    }
+
+    private static int indexOf(List<LocationResponseDto> list, long id) {
+        int low = 0;
+        int high = list.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = list.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Drops only the keyset pages whose id range contains the id; a short page is the tail and also takes new ids.
+    private static <T> void removePagesCovering(Cache<String, List<T>> cache, long id, ToLongFunction<T> idOf) {
+        cache.asMap().entrySet().removeIf(entry -> entry.getKey().startsWith(PAGE_PREFIX)
+                && pageCovers(entry.getKey(), entry.getValue(), id, idOf));
+    }
+
+    private static <T> void removePagesCovering(Cache<String, List<T>> cache, Collection<Long> ids,
+                                                ToLongFunction<T> idOf) {
+        cache.asMap().entrySet().removeIf(entry -> entry.getKey().startsWith(PAGE_PREFIX)
+                && ids.stream().anyMatch(id -> pageCovers(entry.getKey(), entry.getValue(), id, idOf)));
+    }
+
+    private static <T> boolean pageCovers(String key, List<T> page, long id, ToLongFunction<T> idOf) {
+        int separator = key.lastIndexOf(':');
+        long after = Long.parseLong(key.substring(PAGE_PREFIX.length(), separator));
+        int limit = Integer.parseInt(key.substring(separator + 1));
+        if (id <= after) {
+            return false;
+        }
+        return page.size() < limit || idOf.applyAsLong(page.get(page.size() - 1)) >= id;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.example.javalabaip.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version stamps for one kind of entity: one for the whole collection and one per recently changed entity, all drawn
+// from a single counter. Entities without a stamp share the floor, which rises past every stamp that gets dropped,
+// so a version can only ever move forward.
+final class EntityVersions {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong floor = new AtomicLong();
+    private final AtomicLong collection = new AtomicLong();
+    private final AtomicLong period = new AtomicLong();
+    private final Ticker ticker;
+    private final long periodNanos;
+    private final Cache<Long, Long> stamps;
+
+    EntityVersions(long maxSize, Duration ttl) {
+        this(maxSize, ttl, Ticker.systemTicker());
+    }
+
+    // Stamps expire instead of piling up until the size limit, where every new one would evict an old one and
+    // raise the floor. Instead the floor rises once per ttl period, past every stamp issued so far; a stamp lives
+    // for two periods, so a rise has always covered it before it expires.
+    EntityVersions(long maxSize, Duration ttl, Ticker ticker) {
+        this.ticker = ticker;
+        this.periodNanos = Math.max(1, ttl.toNanos());
+        this.period.set(Math.floorDiv(ticker.read(), periodNanos));
+        // The eviction listener runs inside the removal, so the floor is raised before the stamp disappears.
+        this.stamps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.multipliedBy(2))
+                .ticker(ticker)
+                .<Long, Long>evictionListener((id, stamp, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        raise(floor, stamp);
+                    }
+                })
+                .build();
+    }
+
+    long collectionVersion() {
+        return collection.get();
+    }
+
+    long version(long id) {
+        // The stamp is read before the period check, so if it has just expired the floor has already passed it.
+        Long stamp = stamps.getIfPresent(id);
+        long base = currentFloor();
+        return stamp != null ? Math.max(stamp, base) : base;
+    }
+
+    // Any change to an entity also changes every list it can appear in.
+    void changed(Collection<Long> ids) {
+        long stamp = clock.incrementAndGet();
+        for (Long id : ids) {
+            stamps.asMap().merge(id, stamp, Math::max);
+        }
+        raise(collection, stamp);
+    }
+
+    // A deleted entity keeps no stamp; the floor moves instead, so an old tag cannot be answered with a 304.
+    // One delete of many entities costs every unchanged tag a single full response.
+    void deleted(Collection<Long> ids) {
+        long stamp = clock.incrementAndGet();
+        raise(floor, stamp);
+        raise(collection, stamp);
+        stamps.invalidateAll(ids);
+    }
+
+    void collectionChanged() {
+        raise(collection, clock.incrementAndGet());
+    }
+
+    void allChanged() {
+        long stamp = clock.incrementAndGet();
+        raise(floor, stamp);
+        raise(collection, stamp);
+        stamps.invalidateAll();
+    }
+
+    // The floor is raised before the period is recorded, so no reader can see the new period with the old floor.
+    private long currentFloor() {
+        long now = Math.floorDiv(ticker.read(), periodNanos);
+        if (now > period.get()) {
+            raise(floor, clock.get());
+            raise(period, now);
+        }
+        return floor.get();
+    }
+
+    private static void raise(AtomicLong version, long stamp) {
+        version.accumulateAndGet(stamp, Math::max);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.javalabaip.cache;
+
+import com.example.javalabaip.config.GeoProperties;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.util.IpAddressValidator;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+@Component
+public class GeoLocationCache {
+    // Keyed by the numeric IPv4 value: 8 bytes per key instead of a String, and spellings like 08.8.8.8 share an entry.
+    private final AsyncCache<Long, GeoLocationDto> cache;
+
+    public GeoLocationCache(GeoProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaxSize())
+                .expireAfterWrite(properties.getCache().getTtl())
+                .buildAsync();
+    }
+
+    // Concurrent misses for the same address share one in-flight future; the loader runs on the first caller's thread.
+    public GeoLocationDto get(String ipAddress, Function<String, GeoLocationDto> loader) {
+        long key = IpAddressValidator.parseIpv4(ipAddress);
+        if (key < 0) {
+            return loader.apply(ipAddress);
+        }
+        ConcurrentMap<Long, CompletableFuture<GeoLocationDto>> map = cache.asMap();
+        CompletableFuture<GeoLocationDto> pending = new CompletableFuture<>();
+        CompletableFuture<GeoLocationDto> existing = map.putIfAbsent(key, pending);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            GeoLocationDto result = loader.apply(ipAddress);
+            if (result == null) {
+                map.remove(key, pending);
+            }
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            map.remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public Map<String, GeoLocationDto> getAll(Collection<String> ipAddresses,
+                                              Function<List<String>, Map<String, GeoLocationDto>> batchLoader) {
+        ConcurrentMap<Long, CompletableFuture<GeoLocationDto>> map = cache.asMap();
+        Map<String, CompletableFuture<GeoLocationDto>> futures = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<GeoLocationDto>> byKey = new HashMap<>();
+        Map<String, CompletableFuture<GeoLocationDto>> owned = new LinkedHashMap<>();
+        for (String ipAddress : ipAddresses) {
+            if (futures.containsKey(ipAddress)) {
+                continue;
+            }
+            long key = IpAddressValidator.parseIpv4(ipAddress);
+            if (key < 0) {
+                // Not cacheable; still handed to the loader so it can report on it.
+                CompletableFuture<GeoLocationDto> pending = new CompletableFuture<>();
+                futures.put(ipAddress, pending);
+                owned.put(ipAddress, pending);
+                continue;
+            }
+            CompletableFuture<GeoLocationDto> known = byKey.get(key);
+            if (known != null) {
+                futures.put(ipAddress, known);
+                continue;
+            }
+            CompletableFuture<GeoLocationDto> pending = new CompletableFuture<>();
+            CompletableFuture<GeoLocationDto> existing = map.putIfAbsent(key, pending);
+            CompletableFuture<GeoLocationDto> future = existing != null ? existing : pending;
+            futures.put(ipAddress, future);
+            byKey.put(key, future);
+            if (existing == null) {
+                owned.put(ipAddress, pending);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            load(owned, batchLoader);
+        }
+
+        Map<String, GeoLocationDto> result = new HashMap<>();
+        futures.forEach((ipAddress, future) -> {
+            GeoLocationDto geoLocation = future.exceptionally(e -> null).join();
+            if (geoLocation != null) {
+                result.put(ipAddress, geoLocation);
+            }
+        });
+        return result;
+    }
+
+    private void load(Map<String, CompletableFuture<GeoLocationDto>> owned,
+                      Function<List<String>, Map<String, GeoLocationDto>> batchLoader) {
+        ConcurrentMap<Long, CompletableFuture<GeoLocationDto>> map = cache.asMap();
+        try {
+            Map<String, GeoLocationDto> loaded = batchLoader.apply(new ArrayList<>(owned.keySet()));
+            owned.forEach((ipAddress, pending) -> {
+                GeoLocationDto geoLocation = loaded.get(ipAddress);
+                if (geoLocation == null) {
+                    map.remove(IpAddressValidator.parseIpv4(ipAddress), pending);
+                }
+                pending.complete(geoLocation);
+            });
+        } catch (RuntimeException e) {
+            owned.forEach((ipAddress, pending) -> {
+                map.remove(IpAddressValidator.parseIpv4(ipAddress), pending);
+                pending.completeExceptionally(e);
+            });
+            throw e;
+        }
+    }
+
+    private static GeoLocationDto await(CompletableFuture<GeoLocationDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
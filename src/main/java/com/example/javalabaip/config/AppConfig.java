@@ -1,16 +1,59 @@
 package com.example.javalabaip.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import com.example.javalabaip.util.RequestCounter;
 
 @Configuration
+@EnableConfigurationProperties({CacheProperties.class, GeoProperties.class, BulkProperties.class, JobProperties.class,
+        TracingProperties.class})
 public class AppConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager geoConnectionManager(GeoProperties properties) {
+        GeoProperties.IpApi ipApi = properties.getIpApi();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(ipApi.getMaxConnections())
+                .setMaxConnPerRoute(ipApi.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(ipApi.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(ipApi.getReadTimeout()))
+                        .build())
+                .build();
+    }
+
+    // Keep-alive connections are reused from the pool; idle ones are evicted before the server drops them.
+    @Bean
+    public RestTemplate restTemplate(PoolingHttpClientConnectionManager geoConnectionManager, GeoProperties properties) {
+        GeoProperties.IpApi ipApi = properties.getIpApi();
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(geoConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(ipApi.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(ipApi.getReadTimeout()))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    // Publishes httpcomponents.httpclient.pool.* (leased, available, pending, max) for the geo client pool.
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public MeterBinder geoConnectionPoolMetrics(PoolingHttpClientConnectionManager geoConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(geoConnectionManager, "geo");
     }
 
     @Bean
@@ -18,4 +61,3 @@ public class AppConfig {
         return new RequestCounter();
     }
 }
-
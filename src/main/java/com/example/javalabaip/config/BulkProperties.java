@@ -0,0 +1,10 @@
+package com.example.javalabaip.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "bulk")
+public class BulkProperties {
+    private int batchSize = 500;
+}
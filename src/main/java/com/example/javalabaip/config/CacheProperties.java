@@ -0,0 +1,28 @@
+package com.example.javalabaip.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private Region users = new Region(10_000, Duration.ofMinutes(10));
+    private Region userLists = new Region(1_000, Duration.ofMinutes(1));
+    private Region locations = new Region(50_000, Duration.ofMinutes(10));
+    private Region locationLists = new Region(1_000, Duration.ofMinutes(1));
+    // Location writes patch cached lists in place; lists longer than the limit are dropped and reloaded instead.
+    private boolean incrementalLists = true;
+    private int incrementalMaxListSize = 10_000;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Region {
+        private long maxSize;
+        private Duration ttl;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.javalabaip.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "geo")
+public class GeoProperties {
+    private String resolver = "ip-api";
+    private IpApi ipApi = new IpApi();
+    private Offline offline = new Offline();
+    private Cache cache = new Cache();
+
+    @Data
+    public static class IpApi {
+        private String baseUrl = "http://ip-api.com";
+        private int batchSize = 100;
+        // Without the batch endpoint, lookups fan out one request per IP, at most this many at a time.
+        private boolean batchEnabled = true;
+        private int concurrency = 8;
+        // Budgets assumed until X-Rl/X-Ttl response headers say otherwise (ip-api free tier, per minute).
+        private int rateLimit = 45;
+        private int batchRateLimit = 15;
+        private Duration rateLimitWindow = Duration.ofMinutes(1);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        // Longest wait for a free pooled connection before the call fails.
+        private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+        private int maxConnections = 50;
+        private int maxConnectionsPerRoute = 20;
+        private Breaker breaker = new Breaker();
+    }
+
+    @Data
+    public static class Breaker {
+        // Opens once this share of the last slidingWindowSize calls failed, provided at least minimumCalls were made.
+        private double failureRateThreshold = 0.5;
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Offline {
+        private Resource database;
+    }
+
+    @Data
+    public static class Cache {
+        private long maxSize = 100_000;
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
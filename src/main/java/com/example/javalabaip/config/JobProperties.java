@@ -0,0 +1,17 @@
+package com.example.javalabaip.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "jobs")
+public class JobProperties {
+    private int workers = 4;
+    // IP addresses not yet processed across queued and running jobs; submissions beyond this are rejected with 503.
+    private long maxQueuedAddresses = 100_000;
+    private int chunkSize = 100;
+    // How long a finished job stays queryable; queued and running jobs are kept until they finish.
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,15 @@
+package com.example.javalabaip.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+    // Share of controller calls that are traced; 0 disables tracing, 1 traces every request.
+    private double sampleRate = 0.01;
+    // Longer argument values are cut; collections and arrays are reported by size only.
+    private int maxArgumentLength = 100;
+    // Spans beyond this per request are counted but not kept, so large bulk calls stay bounded.
+    private int maxSpans = 200;
+}
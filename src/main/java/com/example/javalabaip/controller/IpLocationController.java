@@ -1,18 +1,36 @@
 package com.example.javalabaip.controller;
 
 import com.example.javalabaip.cache.CacheManager;
+import com.example.javalabaip.dto.BulkJobDto;
 import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.BadRequestException;
 import com.example.javalabaip.repository.LocationRepository;
 import com.example.javalabaip.service.IpLocationService;
+import com.example.javalabaip.service.LocationExportService;
+import com.example.javalabaip.service.LocationJobService;
+import com.example.javalabaip.service.LocationStatisticsService;
+import com.example.javalabaip.util.GeoBox;
+import com.example.javalabaip.util.IpAddressValidator;
+import com.example.javalabaip.util.IpRange;
 import com.example.javalabaip.util.RequestCounter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -20,14 +38,24 @@ import java.util.Map;
 @Validated
 public class IpLocationController {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final IpLocationService ipLocationService;
+    private final LocationExportService locationExportService;
+    private final LocationJobService locationJobService;
+    private final LocationStatisticsService locationStatisticsService;
     private final LocationRepository locationRepository;
     private final CacheManager cacheManager;
     private final RequestCounter requestCounter;
 
     @Autowired
-    public IpLocationController(IpLocationService ipLocationService, LocationRepository locationRepository, CacheManager cacheManager, RequestCounter requestCounter) {
+    public IpLocationController(IpLocationService ipLocationService, LocationExportService locationExportService,
+                                LocationJobService locationJobService, LocationStatisticsService locationStatisticsService,
+                                LocationRepository locationRepository, CacheManager cacheManager, RequestCounter requestCounter) {
         this.ipLocationService = ipLocationService;
+        this.locationExportService = locationExportService;
+        this.locationJobService = locationJobService;
+        this.locationStatisticsService = locationStatisticsService;
         this.locationRepository = locationRepository;
         this.cacheManager = cacheManager;
         this.requestCounter = requestCounter;
@@ -43,10 +71,7 @@ public class IpLocationController {
     public ResponseEntity<List<LocationResponseDto>> createBulkLocations(@Valid @RequestBody Map<String, Object> request) {
         @SuppressWarnings("unchecked")
         List<String> ipAddresses = (List<String>) request.get("ipAddresses");
-        @SuppressWarnings("unchecked")
-        Map<String, Object> userDtoMap = (Map<String, Object>) request.get("userDto");
-        UserDto userDto = new UserDto();
-        userDto.setUsername((String) userDtoMap.get("username"));
+        UserDto userDto = bulkUser(request);
 
         if (ipAddresses == null || userDto.getUsername() == null) {
             return ResponseEntity.badRequest().build();
@@ -56,18 +81,136 @@ public class IpLocationController {
         return ResponseEntity.ok(responses);
     }
 
+    @PostMapping(value = "/locations/bulk", params = "async=true")
+    public ResponseEntity<BulkJobDto> submitBulkLocations(@Valid @RequestBody Map<String, Object> request) {
+        @SuppressWarnings("unchecked")
+        List<String> ipAddresses = (List<String>) request.get("ipAddresses");
+        UserDto userDto = bulkUser(request);
+
+        if (ipAddresses == null || userDto.getUsername() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        BulkJobDto job = locationJobService.submit(ipAddresses, userDto);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    // A null return after checkNotModified leaves the 304 it has already set. The ETag is read before the data,
+    // and a write moves it only after commit, once its cache entries are gone, so the tag normally trails the body.
+    // A read that loaded rows just before that commit and caches them after the eviction can still pair the old
+    // body with the new tag until the entry expires.
     @GetMapping("/locations/{id}")
-    public ResponseEntity<LocationResponseDto> findById(@PathVariable Long id) {
+    public ResponseEntity<LocationResponseDto> findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(cacheManager.locationETag(id))) {
+            return null;
+        }
         LocationResponseDto location = ipLocationService.findById(id);
         return location != null ? ResponseEntity.ok(location) : ResponseEntity.notFound().build();
     }
 
     @GetMapping("/locations")
-    public ResponseEntity<List<LocationResponseDto>> findAll() {
-        List<LocationResponseDto> locations = ipLocationService.findAll();
+    public ResponseEntity<List<LocationResponseDto>> findAll(
+            @RequestParam(value = "after", defaultValue = "0") @Min(0) long after,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit,
+            WebRequest request) {
+        if (request.checkNotModified(cacheManager.locationsETag())) {
+            return null;
+        }
+        List<LocationResponseDto> locations = ipLocationService.findAll(after, limit);
+        return PageLinks.page(locations, limit, LocationResponseDto::getId);
+    }
+
+    @GetMapping("/locations/by-range")
+    public ResponseEntity<List<LocationResponseDto>> findByRange(
+            @RequestParam(value = "cidr", required = false) String cidr,
+            @RequestParam(value = "start", required = false) String start,
+            @RequestParam(value = "end", required = false) String end,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit) {
+        IpRange range;
+        long afterIp = -1;
+        long afterId = 0;
+        try {
+            if (cidr != null) {
+                range = IpRange.ofCidr(cidr);
+            } else if (start != null && end != null) {
+                range = IpRange.of(start, end);
+            } else {
+                throw new IllegalArgumentException("Укажите cidr или start и end");
+            }
+            if (after != null) {
+                int separator = after.indexOf(':');
+                afterIp = Long.parseLong(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+
+        List<LocationResponseDto> locations = ipLocationService.findByRange(range, afterIp, afterId, limit);
+        return PageLinks.page(locations, limit,
+                location -> IpAddressValidator.parseIpv4(location.getIpAddress()) + ":" + location.getId());
+    }
+
+    @GetMapping("/locations/near")
+    public ResponseEntity<List<LocationResponseDto>> findNear(
+            @RequestParam("lat") double latitude,
+            @RequestParam("lon") double longitude,
+            @RequestParam("radiusKm") double radiusKm,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit) {
+        List<LocationResponseDto> locations = ipLocationService.findNear(latitude, longitude, radiusKm, limit);
         return ResponseEntity.ok(locations);
     }
 
+    @GetMapping("/locations/within")
+    public ResponseEntity<List<LocationResponseDto>> findWithin(
+            @RequestParam("minLat") double minLatitude,
+            @RequestParam("minLon") double minLongitude,
+            @RequestParam("maxLat") double maxLatitude,
+            @RequestParam("maxLon") double maxLongitude,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit) {
+        GeoBox box;
+        try {
+            box = GeoBox.of(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+        return ResponseEntity.ok(ipLocationService.findWithin(box, limit));
+    }
+
+    // Served from in-memory counters; never touches the database.
+    @GetMapping("/locations/stats")
+    public ResponseEntity<Map<String, Long>> getStatistics(
+            @RequestParam(value = "by", defaultValue = "country") String by,
+            @RequestParam(value = "top", defaultValue = "0") @Min(0) int top) {
+        LocationStatisticsService.Dimension dimension;
+        try {
+            dimension = LocationStatisticsService.Dimension.valueOf(by.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(locationStatisticsService.getCounts(dimension, top));
+    }
+
+    @GetMapping("/locations/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        LocationExportService.Format exportFormat;
+        try {
+            exportFormat = LocationExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        MediaType mediaType = exportFormat == LocationExportService.Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON;
+        String filename = "locations." + exportFormat.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> locationExportService.export(out, exportFormat));
+    }
+
     @GetMapping("/locations/by-username")
     public ResponseEntity<List<LocationResponseDto>> findByUsername(@RequestParam("username") String username) {
         List<LocationResponseDto> locations = ipLocationService.findByUsername(username);
@@ -87,13 +230,27 @@ public class IpLocationController {
     }
 
     @GetMapping("/request-count")
-    public ResponseEntity<Long> getRequestCount() {
-        return ResponseEntity.ok(requestCounter.getCount());
+    public ResponseEntity<Map<String, Object>> getRequestCount() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("total", requestCounter.getCount());
+        response.put("operations", requestCounter.getOperationCounts());
+        return ResponseEntity.ok(response);
     }
 
+    // Clears the counters only; the latency timers behind /metrics keep their own rolling window.
     @PostMapping("/request-count/reset")
     public ResponseEntity<Void> resetRequestCount() {
         requestCounter.reset();
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    private static UserDto bulkUser(Map<String, Object> request) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> userDtoMap = (Map<String, Object>) request.get("userDto");
+        UserDto userDto = new UserDto();
+        if (userDtoMap != null) {
+            userDto.setUsername((String) userDtoMap.get("username"));
+        }
+        return userDto;
+    }
+}
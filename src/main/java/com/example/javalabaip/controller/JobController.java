@@ -0,0 +1,25 @@
+package com.example.javalabaip.controller;
+
+import com.example.javalabaip.dto.BulkJobDto;
+import com.example.javalabaip.service.LocationJobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api")
+public class JobController {
+
+    private final LocationJobService locationJobService;
+
+    public JobController(LocationJobService locationJobService) {
+        this.locationJobService = locationJobService;
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<BulkJobDto> findById(@PathVariable String id) {
+        return ResponseEntity.ok(locationJobService.findById(id));
+    }
+}
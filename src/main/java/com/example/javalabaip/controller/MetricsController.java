@@ -0,0 +1,33 @@
+package com.example.javalabaip.controller;
+
+import com.example.javalabaip.cache.CacheManager;
+import com.example.javalabaip.util.OperationMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class MetricsController {
+
+    private final OperationMetrics operationMetrics;
+    private final CacheManager cacheManager;
+
+    public MetricsController(OperationMetrics operationMetrics, CacheManager cacheManager) {
+        this.operationMetrics = operationMetrics;
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Map<String, Object>>> getMetrics() {
+        return ResponseEntity.ok(operationMetrics.snapshot());
+    }
+
+    @GetMapping("/metrics/cache")
+    public ResponseEntity<Map<String, Double>> getCacheHitRatios() {
+        return ResponseEntity.ok(cacheManager.getHitRatios());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.javalabaip.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+
+final class PageLinks {
+
+    static final String DEFAULT_LIMIT = "100";
+    static final int MAX_LIMIT = 1000;
+
+    private PageLinks() {
+    }
+
+    // A full page means more rows may follow, so the response carries a Link header with the next cursor.
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, Object> cursor) {
+        if (items.size() < limit) {
+            return ResponseEntity.ok(items);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", cursor.apply(items.get(items.size() - 1)))
+                .replaceQueryParam("limit", limit)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(items);
+    }
+}
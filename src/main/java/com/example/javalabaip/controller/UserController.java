@@ -1,14 +1,19 @@
 package com.example.javalabaip.controller;
 
 import com.example.javalabaip.cache.CacheManager;
+import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.service.IpLocationService;
 import com.example.javalabaip.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.util.List;
 
 @RestController
@@ -17,11 +22,13 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final IpLocationService ipLocationService;
     private final CacheManager cacheManager;
 
     @Autowired
-    public UserController(UserService userService, CacheManager cacheManager) {
+    public UserController(UserService userService, IpLocationService ipLocationService, CacheManager cacheManager) {
         this.userService = userService;
+        this.ipLocationService = ipLocationService;
         this.cacheManager = cacheManager;
     }
 
@@ -32,15 +39,33 @@ public class UserController {
     }
 
     @GetMapping("/users/{id}")
-    public ResponseEntity<UserDto> findById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> findById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(cacheManager.userETag(id))) {
+            return null;
+        }
         UserDto user = userService.findById(id);
         return user != null ? ResponseEntity.ok(user) : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/users/{id}/locations")
+    public ResponseEntity<List<LocationResponseDto>> findLocations(
+            @PathVariable Long id,
+            @RequestParam(value = "after", defaultValue = "0") @Min(0) long after,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit) {
+        List<LocationResponseDto> locations = ipLocationService.findByUserId(id, after, limit);
+        return PageLinks.page(locations, limit, LocationResponseDto::getId);
+    }
+
     @GetMapping("/users")
-    public ResponseEntity<List<UserDto>> findAll() {
-        List<UserDto> users = userService.findAll();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<UserDto>> findAll(
+            @RequestParam(value = "after", defaultValue = "0") @Min(0) long after,
+            @RequestParam(value = "limit", defaultValue = PageLinks.DEFAULT_LIMIT) @Min(1) @Max(PageLinks.MAX_LIMIT) int limit,
+            WebRequest request) {
+        if (request.checkNotModified(cacheManager.usersETag())) {
+            return null;
+        }
+        List<UserDto> users = userService.findAll(after, limit);
+        return PageLinks.page(users, limit, UserDto::getId);
     }
 
     @GetMapping("/users/by-username")
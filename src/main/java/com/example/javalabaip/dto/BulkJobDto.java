@@ -0,0 +1,22 @@
+package com.example.javalabaip.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkJobDto {
+    private String id;
+    private Status status;
+    private int total;
+    private int processed;
+    private int succeeded;
+    private int failed;
+    private String error;
+    private List<IpResultDto> results = new ArrayList<>();
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.javalabaip.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GeoLocationDto {
+    private String query;
+    private String city;
+    private String country;
+    private String continent;
+
+    @JsonAlias("lat")
+    private Double latitude;
+
+    @JsonAlias("lon")
+    private Double longitude;
+
+    private String timezone;
+}
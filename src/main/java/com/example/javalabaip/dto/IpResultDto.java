@@ -0,0 +1,31 @@
+package com.example.javalabaip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IpResultDto {
+    private String ipAddress;
+    private Status status;
+    private LocationResponseDto location;
+    private String message;
+
+    public enum Status {
+        CREATED, INVALID, FAILED
+    }
+
+    public static IpResultDto created(String ipAddress, LocationResponseDto location) {
+        return new IpResultDto(ipAddress, Status.CREATED, location, null);
+    }
+
+    public static IpResultDto invalid(String ipAddress, String message) {
+        return new IpResultDto(ipAddress, Status.INVALID, null, message);
+    }
+
+    public static IpResultDto failed(String ipAddress, String message) {
+        return new IpResultDto(ipAddress, Status.FAILED, null, message);
+    }
+}
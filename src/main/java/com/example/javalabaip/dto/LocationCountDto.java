@@ -0,0 +1,15 @@
+package com.example.javalabaip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationCountDto {
+    private String country;
+    private String continent;
+    private String city;
+    private long count;
+}
@@ -1,12 +1,14 @@
 package com.example.javalabaip.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import jakarta.validation.constraints.NotBlank;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class UserDto {
     private Long id;
 
@@ -14,4 +16,9 @@ public class UserDto {
     private String username;
 
     private List<LocationResponseDto> locations = new ArrayList<>();
+
+    public UserDto(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
 }
\ No newline at end of file
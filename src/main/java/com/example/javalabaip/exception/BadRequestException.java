@@ -0,0 +1,14 @@
+package com.example.javalabaip.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class BadRequestException extends DomainException {
+
+    public BadRequestException(String message) {
+        super(HttpStatus.BAD_REQUEST, message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(HttpStatus.BAD_REQUEST, message, cause);
+    }
+}
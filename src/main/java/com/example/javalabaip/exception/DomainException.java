@@ -0,0 +1,23 @@
+package com.example.javalabaip.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Expected client errors (missing entities, malformed input). They carry no stack trace: filling it in is most of
+// the cost of a throw, and GlobalExceptionHandler never prints it for these.
+public abstract class DomainException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    protected DomainException(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    protected DomainException(HttpStatus status, String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
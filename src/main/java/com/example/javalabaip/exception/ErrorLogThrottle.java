@@ -0,0 +1,44 @@
+package com.example.javalabaip.exception;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lets one log entry per key through each window and counts the rest, so a burst of identical errors costs a
+// counter increment per request instead of a formatted log line.
+final class ErrorLogThrottle {
+
+    static final long SUPPRESSED = -1;
+
+    private final long windowNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    ErrorLogThrottle(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    // Returns SUPPRESSED, or how many entries with this key were suppressed since the last one that was logged.
+    long tryAcquire(String key) {
+        long now = System.nanoTime();
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.computeIfAbsent(key, k -> new Window(now - windowNanos));
+        }
+        long start = window.start.get();
+        if (now - start >= windowNanos && window.start.compareAndSet(start, now)) {
+            return window.suppressed.getAndSet(0);
+        }
+        window.suppressed.incrementAndGet();
+        return SUPPRESSED;
+    }
+
+    private static final class Window {
+        private final AtomicLong start;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private Window(long start) {
+            this.start = new AtomicLong(start);
+        }
+    }
+}
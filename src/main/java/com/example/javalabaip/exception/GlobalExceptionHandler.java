@@ -1,6 +1,8 @@
 package com.example.javalabaip.exception;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -11,10 +13,26 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    // Each kind of client error is logged at most once per window, with the number of repeats it stood for. Server
+    // errors are never throttled: two unrelated faults can share an exception class, and each needs its stack trace.
+    private static final Duration LOG_WINDOW = Duration.ofMinutes(1);
+
+    private final ErrorLogThrottle throttle = new ErrorLogThrottle(LOG_WINDOW);
+
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<String> handleDomainException(DomainException ex) {
+        long repeats = throttle.tryAcquire(ex.getClass().getName());
+        if (repeats != ErrorLogThrottle.SUPPRESSED) {
+            logger.warn("Client error {}: {} ({} similar suppressed)", ex.getStatus().value(), ex.getMessage(), repeats);
+        }
+        return new ResponseEntity<>(ex.getMessage(), ex.getStatus());
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -22,19 +40,41 @@ public class GlobalExceptionHandler {
         for (FieldError error : ex.getBindingResult().getFieldErrors()) {
             errorMessage.append(error.getField()).append(": ").append(error.getDefaultMessage()).append("; ");
         }
-        logger.error("Validation error: {}", errorMessage);
+        logValidationError(errorMessage);
         return new ResponseEntity<>(errorMessage.toString(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleConstraintViolationException(ConstraintViolationException ex) {
+        StringBuilder errorMessage = new StringBuilder("Validation failed: ");
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            errorMessage.append(violation.getPropertyPath()).append(": ").append(violation.getMessage()).append("; ");
+        }
+        logValidationError(errorMessage);
+        return new ResponseEntity<>(errorMessage.toString(), HttpStatus.BAD_REQUEST);
+    }
+
+    // Client errors are logged without the stack and throttled per status; server errors are always logged with it.
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity<String> handleResponseStatusException(ResponseStatusException ex) {
-        logger.error("Client error: {}", ex.getReason(), ex);
+        if (ex.getStatusCode().is5xxServerError()) {
+            logger.error("Server error: {}", ex.getReason(), ex);
+        } else {
+            long repeats = throttle.tryAcquire("status:" + ex.getStatusCode().value());
+            if (repeats != ErrorLogThrottle.SUPPRESSED) {
+                logger.warn("Client error {}: {} ({} similar suppressed)",
+                        ex.getStatusCode().value(), ex.getReason(), repeats);
+            }
+        }
         return new ResponseEntity<>(ex.getReason(), ex.getStatusCode());
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException ex) {
-        logger.error("Entity not found: {}", ex.getMessage(), ex);
+        long repeats = throttle.tryAcquire(EntityNotFoundException.class.getName());
+        if (repeats != ErrorLogThrottle.SUPPRESSED) {
+            logger.warn("Entity not found: {} ({} similar suppressed)", ex.getMessage(), repeats);
+        }
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
@@ -43,4 +83,11 @@ public class GlobalExceptionHandler {
         logger.error("Internal server error: {}", ex.getMessage(), ex);
         return new ResponseEntity<>("An unexpected error occurred", HttpStatus.INTERNAL_SERVER_ERROR);
     }
-}
\ No newline at end of file
+
+    private void logValidationError(CharSequence errorMessage) {
+        long repeats = throttle.tryAcquire("validation");
+        if (repeats != ErrorLogThrottle.SUPPRESSED) {
+            logger.warn("Validation error: {} ({} similar suppressed)", errorMessage, repeats);
+        }
+    }
+}
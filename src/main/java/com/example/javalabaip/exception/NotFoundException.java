@@ -0,0 +1,10 @@
+package com.example.javalabaip.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class NotFoundException extends DomainException {
+
+    public NotFoundException(String message) {
+        super(HttpStatus.NOT_FOUND, message);
+    }
+}
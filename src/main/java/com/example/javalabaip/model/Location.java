@@ -1,5 +1,6 @@
 package com.example.javalabaip.model;
 
+import com.example.javalabaip.util.IpAddressValidator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -12,12 +13,17 @@ import java.time.LocalDateTime;
 public class Location {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "locations_seq")
+    @SequenceGenerator(name = "locations_seq", sequenceName = "locations_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "ip_address", nullable = false)
     private String ipAddress;
 
+    // Unsigned 32-bit IPv4 value, kept in step with ipAddress; indexed for lookups and range scans.
+    @Column(name = "ip_value")
+    private Long ipValue;
+
     @Column(name = "city")
     private String city;
 
@@ -42,4 +48,11 @@ public class Location {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user; // Связь с пользователем (FK)
+
+    @PrePersist
+    @PreUpdate
+    void updateIpValue() {
+        long value = IpAddressValidator.parseIpv4(ipAddress);
+        ipValue = value >= 0 ? value : null;
+    }
 }
\ No newline at end of file
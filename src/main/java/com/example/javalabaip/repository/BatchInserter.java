@@ -0,0 +1,44 @@
+package com.example.javalabaip.repository;
+
+import com.example.javalabaip.config.BulkProperties;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@Repository
+public class BatchInserter {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BatchInserter(EntityManager entityManager, TransactionTemplate transactionTemplate, BulkProperties properties) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = properties.getBatchSize();
+    }
+
+    // Persists new entities in one transaction, flushing and clearing every batchSize rows so Hibernate sends
+    // JDBC batches and the persistence context stays small. Each entity is mapped right after its chunk is flushed.
+    public <T, R> List<R> insertAll(List<T> entities, Function<T, R> mapper) {
+        if (entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return transactionTemplate.execute(status -> {
+            List<R> result = new ArrayList<>(entities.size());
+            for (int from = 0; from < entities.size(); from += batchSize) {
+                List<T> chunk = entities.subList(from, Math.min(from + batchSize, entities.size()));
+                chunk.forEach(entityManager::persist);
+                entityManager.flush();
+                chunk.forEach(entity -> result.add(mapper.apply(entity)));
+                entityManager.clear();
+            }
+            return result;
+        });
+    }
+}
@@ -1,16 +1,88 @@
 package com.example.javalabaip.repository;
 
+import com.example.javalabaip.dto.LocationCountDto;
+import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.model.Location;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
-    List<Location> findByUserId(Long userId);
+    String DTO_SELECT = "SELECT new com.example.javalabaip.dto.LocationResponseDto(l.id, l.ipAddress, l.city, l.country, "
+            + "l.continent, l.latitude, l.longitude, l.timezone) FROM Location l ";
+
+    // Fetches the owner in the same query so writes can read its username without a lazy load.
+    @Query("SELECT l FROM Location l JOIN FETCH l.user WHERE l.id = :id")
+    Optional<Location> findByIdWithUser(Long id);
 
     @Query("SELECT l FROM Location l JOIN l.user u WHERE u.username = :username")
     List<Location> findByUsername(String username);
+
+    @Query(DTO_SELECT + "WHERE l.id > :after ORDER BY l.id")
+    List<LocationResponseDto> findDtoPage(long after, Limit limit);
+
+    @Query(DTO_SELECT + "WHERE l.user.id = :userId AND l.id > :after ORDER BY l.id")
+    List<LocationResponseDto> findDtoPageByUserId(Long userId, long after, Limit limit);
+
+    @Query(DTO_SELECT + "WHERE l.id = :id")
+    Optional<LocationResponseDto> findDtoById(Long id);
+
+    // Keyset over (ipValue, id) so each page is a range scan on idx_locations_ip_value; from is already >= afterIp.
+    @Query(DTO_SELECT + "WHERE l.ipValue BETWEEN :from AND :to AND (l.ipValue > :afterIp OR l.id > :afterId) "
+            + "ORDER BY l.ipValue, l.id")
+    List<LocationResponseDto> findDtoRange(long from, long to, long afterIp, long afterId, Limit limit);
+
+    // The box predicate must repeat the expression of idx_locations_position for the planner to use the GiST index;
+    // the haversine distance matches GeoBox.distanceKm, and only the closest limit rows leave the database.
+    @Query(value = "SELECT * FROM (SELECT id, ip_address AS \"ipAddress\", city, country, continent, latitude, longitude, "
+            + "timezone, 2 * :earthRadiusKm * asin(least(1, sqrt(power(sin(radians(latitude - :latitude) / 2), 2) "
+            + "+ cos(radians(:latitude)) * cos(radians(latitude)) * power(sin(radians(longitude - :longitude) / 2), 2)))) "
+            + "AS \"distanceKm\" FROM locations WHERE point(longitude, latitude) "
+            + "<@ box(point(:minLongitude, :minLatitude), point(:maxLongitude, :maxLatitude))) nearby "
+            + "WHERE \"distanceKm\" <= :radiusKm ORDER BY \"distanceKm\", id LIMIT :limit", nativeQuery = true)
+    List<NearbyLocation> findNearestInBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                                          double latitude, double longitude, double radiusKm, double earthRadiusKm, int limit);
+
+    @Query(DTO_SELECT + "JOIN l.user u WHERE u.username = :username ORDER BY l.id")
+    List<LocationResponseDto> findDtosByUsername(String username);
+
+    @Query("SELECT new com.example.javalabaip.dto.LocationCountDto(l.country, l.continent, l.city, COUNT(l)) "
+            + "FROM Location l GROUP BY l.country, l.continent, l.city")
+    List<LocationCountDto> countByPlace();
+
+    interface NearbyLocation {
+        Long getId();
+
+        String getIpAddress();
+
+        String getCity();
+
+        String getCountry();
+
+        String getContinent();
+
+        Double getLatitude();
+
+        Double getLongitude();
+
+        String getTimezone();
+
+        double getDistanceKm();
+    }
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(DTO_SELECT + "ORDER BY l.id")
+    Stream<LocationResponseDto> streamAllDtos();
 }
\ No newline at end of file
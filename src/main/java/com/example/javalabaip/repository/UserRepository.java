@@ -1,14 +1,34 @@
 package com.example.javalabaip.repository;
 
+import com.example.javalabaip.dto.UserDto;
 import com.example.javalabaip.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    String DTO_SELECT = "SELECT new com.example.javalabaip.dto.UserDto(u.id, u.username) FROM User u ";
+
     Optional<User> findByUsername(String username);
 
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    @Query(DTO_SELECT + "WHERE u.id > :after ORDER BY u.id")
+    List<UserDto> findDtoPage(long after, Limit limit);
+
+    @Query(DTO_SELECT + "WHERE u.id = :id")
+    Optional<UserDto> findDtoById(Long id);
+
+    @Query(DTO_SELECT + "WHERE u.username = :username")
+    Optional<UserDto> findDtoByUsername(String username);
+
+    // Only for callers that need the whole collection, such as a cascading delete; findById leaves it lazy.
     @EntityGraph(attributePaths = "locations")
-    Optional<User> findById(Long id);
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdWithLocations(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.GeoLocationDto;
+
+import java.util.List;
+import java.util.Map;
+
+public interface GeoResolver {
+
+    GeoLocationDto resolve(String ipAddress);
+
+    Map<String, GeoLocationDto> resolveAll(List<String> ipAddresses);
+}
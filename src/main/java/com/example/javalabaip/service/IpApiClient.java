@@ -0,0 +1,250 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.config.GeoProperties;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.util.CircuitBreaker;
+import com.example.javalabaip.util.CircuitBreakerOpenException;
+import com.example.javalabaip.util.RateLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+@ConditionalOnProperty(name = "geo.resolver", havingValue = "ip-api", matchIfMissing = true)
+public class IpApiClient implements GeoResolver, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(IpApiClient.class);
+    private static final String FIELDS = "status,message,continent,country,city,lat,lon,timezone,query";
+    private static final String REMAINING_HEADER = "X-Rl";
+    private static final String RESET_HEADER = "X-Ttl";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final int batchSize;
+    private final boolean batchEnabled;
+    private final RateLimiter singleLimiter;
+    private final RateLimiter batchLimiter;
+    private final ExecutorService executor;
+    private final CircuitBreaker circuitBreaker;
+    private final GeoResolver fallback;
+
+    public IpApiClient(RestTemplate restTemplate, GeoProperties properties) {
+        GeoProperties.IpApi ipApi = properties.getIpApi();
+        this.restTemplate = restTemplate;
+        this.baseUrl = ipApi.getBaseUrl();
+        this.batchSize = ipApi.getBatchSize();
+        this.batchEnabled = ipApi.isBatchEnabled();
+        // ip-api meters single and batch lookups separately.
+        this.singleLimiter = new RateLimiter(ipApi.getRateLimit(), ipApi.getRateLimitWindow());
+        this.batchLimiter = new RateLimiter(ipApi.getBatchRateLimit(), ipApi.getRateLimitWindow());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(ipApi.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "ip-api-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        GeoProperties.Breaker breaker = ipApi.getBreaker();
+        this.circuitBreaker = new CircuitBreaker(breaker.getFailureRateThreshold(), breaker.getSlidingWindowSize(),
+                breaker.getMinimumCalls(), breaker.getOpenDuration());
+        // With an offline database configured, an open breaker degrades to it instead of failing.
+        this.fallback = properties.getOffline().getDatabase() != null ? new OfflineGeoResolver(properties) : null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("geo.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(registry);
+        FunctionCounter.builder("geo.circuit.rejected", circuitBreaker, CircuitBreaker::getRejectedCount)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public GeoLocationDto resolve(String ipAddress) {
+        GeoLocationDto geoLocation;
+        try {
+            geoLocation = call(singleLimiter, () -> restTemplate.exchange(
+                    baseUrl + "/json/{ip}?fields={fields}", HttpMethod.GET, null, GeoLocationDto.class, ipAddress, FIELDS));
+        } catch (CircuitBreakerOpenException e) {
+            if (fallback == null) {
+                throw e;
+            }
+            return fallback.resolve(ipAddress);
+        }
+        return isComplete(geoLocation) ? geoLocation : null;
+    }
+
+    // Entries come back in input order; addresses that could not be resolved are left out.
+    @Override
+    public Map<String, GeoLocationDto> resolveAll(List<String> ipAddresses) {
+        return batchEnabled ? resolveInBatches(ipAddresses) : resolveInParallel(ipAddresses);
+    }
+
+    private Map<String, GeoLocationDto> resolveInBatches(List<String> ipAddresses) {
+        Map<String, GeoLocationDto> result = new LinkedHashMap<>();
+        for (int from = 0; from < ipAddresses.size(); from += batchSize) {
+            List<String> chunk = ipAddresses.subList(from, Math.min(from + batchSize, ipAddresses.size()));
+            try {
+                result.putAll(fetchBatch(chunk));
+            } catch (CircuitBreakerOpenException e) {
+                if (fallback == null) {
+                    // Later chunks would be rejected too; chunks already resolved are kept and the rest are left out,
+                    // so the caller reports them as failed addresses.
+                    logger.warn("Цепь к ip-api разомкнута, {} из {} IP-адресов не запрошены",
+                            ipAddresses.size() - from, ipAddresses.size());
+                    break;
+                }
+                result.putAll(fallback.resolveAll(chunk));
+            } catch (RestClientException e) {
+                logger.error("Ошибка пакетного запроса для {} IP-адресов: {}", chunk.size(), e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    // The pool size caps how many lookups are in flight; the shared limiter paces them to the server's budget.
+    private Map<String, GeoLocationDto> resolveInParallel(List<String> ipAddresses) {
+        List<CompletableFuture<GeoLocationDto>> futures = new ArrayList<>(ipAddresses.size());
+        for (String ipAddress : ipAddresses) {
+            futures.add(CompletableFuture.supplyAsync(() -> resolveQuietly(ipAddress), executor));
+        }
+        Map<String, GeoLocationDto> result = new LinkedHashMap<>();
+        for (int i = 0; i < ipAddresses.size(); i++) {
+            GeoLocationDto geoLocation = futures.get(i).join();
+            if (geoLocation != null) {
+                result.put(ipAddresses.get(i), geoLocation);
+            }
+        }
+        return result;
+    }
+
+    private GeoLocationDto resolveQuietly(String ipAddress) {
+        try {
+            return resolve(ipAddress);
+        } catch (RestClientException | CircuitBreakerOpenException e) {
+            logger.warn("Ошибка запроса для IP-адреса {}: {}", ipAddress, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<String, GeoLocationDto> fetchBatch(List<String> ipAddresses) {
+        GeoLocationDto[] response = call(batchLimiter, () -> restTemplate.exchange(
+                baseUrl + "/batch?fields={fields}", HttpMethod.POST, new HttpEntity<>(ipAddresses),
+                GeoLocationDto[].class, FIELDS));
+        Map<String, GeoLocationDto> result = new LinkedHashMap<>();
+        if (response == null) {
+            return result;
+        }
+
+        // ip-api answers in request order; the echoed query is preferred when present.
+        for (int i = 0; i < response.length && i < ipAddresses.size(); i++) {
+            GeoLocationDto geoLocation = response[i];
+            if (isComplete(geoLocation)) {
+                String ipAddress = geoLocation.getQuery() != null ? geoLocation.getQuery() : ipAddresses.get(i);
+                result.put(ipAddress, geoLocation);
+            }
+        }
+        return result;
+    }
+
+    // Runs one request under the breaker and the limiter; a 429 is retried after the reset.
+    // Timeouts, I/O errors, 5xx and exhausted 429 retries count as breaker failures; other 4xx do not.
+    // Any other exit, such as an interrupted wait for the limiter, releases the breaker without an outcome,
+    // so a half-open trial can never stay in flight forever.
+    private <T> T call(RateLimiter limiter, Supplier<ResponseEntity<T>> request) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new CircuitBreakerOpenException("ip-api временно недоступен");
+        }
+        boolean reported = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                acquire(limiter);
+                try {
+                    ResponseEntity<T> response = request.get();
+                    complete(limiter, response.getHeaders());
+                    reported = true;
+                    circuitBreaker.onSuccess();
+                    return response.getBody();
+                } catch (HttpClientErrorException.TooManyRequests e) {
+                    complete(limiter, e.getResponseHeaders());
+                    if (attempt >= MAX_ATTEMPTS) {
+                        reported = true;
+                        circuitBreaker.onFailure();
+                        throw e;
+                    }
+                    logger.warn("Превышен лимит запросов к ip-api, повтор после сброса окна");
+                } catch (HttpClientErrorException e) {
+                    complete(limiter, e.getResponseHeaders());
+                    reported = true;
+                    circuitBreaker.onSuccess();
+                    throw e;
+                } catch (RuntimeException e) {
+                    limiter.release();
+                    reported = true;
+                    circuitBreaker.onFailure();
+                    throw e;
+                }
+            }
+        } finally {
+            if (!reported) {
+                circuitBreaker.release();
+            }
+        }
+    }
+
+    private static void acquire(RateLimiter limiter) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание лимита запросов к ip-api", e);
+        }
+    }
+
+    private static void complete(RateLimiter limiter, HttpHeaders headers) {
+        String remaining = headers == null ? null : headers.getFirst(REMAINING_HEADER);
+        String reset = headers == null ? null : headers.getFirst(RESET_HEADER);
+        if (remaining == null || reset == null) {
+            limiter.release();
+            return;
+        }
+        try {
+            limiter.update(Integer.parseInt(remaining.trim()), Long.parseLong(reset.trim()));
+        } catch (NumberFormatException e) {
+            limiter.release();
+        }
+    }
+
+    private static boolean isComplete(GeoLocationDto geoLocation) {
+        return geoLocation != null && geoLocation.getCity() != null && geoLocation.getCountry() != null;
+    }
+}
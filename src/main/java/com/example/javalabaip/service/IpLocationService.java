@@ -1,58 +1,79 @@
 package com.example.javalabaip.service;
 
 import com.example.javalabaip.cache.CacheManager;
+import com.example.javalabaip.cache.GeoLocationCache;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.dto.IpResultDto;
 import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.BadRequestException;
+import com.example.javalabaip.exception.NotFoundException;
 import com.example.javalabaip.model.Location;
 import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.BatchInserter;
 import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.repository.LocationRepository.NearbyLocation;
 import com.example.javalabaip.repository.UserRepository;
+import com.example.javalabaip.util.CircuitBreakerOpenException;
+import com.example.javalabaip.util.GeoBox;
 import com.example.javalabaip.util.IpAddressValidator;
+import com.example.javalabaip.util.IpRange;
 import com.example.javalabaip.util.RequestCounter;
-import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class IpLocationService {
 
     private static final Logger logger = LoggerFactory.getLogger(IpLocationService.class);
-    private final RestTemplate restTemplate;
+    private final GeoResolver geoResolver;
+    private final GeoLocationCache geoLocationCache;
     private final LocationRepository locationRepository;
+    private final BatchInserter batchInserter;
     private final UserRepository userRepository;
     private final CacheManager cacheManager;
     private final RequestCounter requestCounter;
+    private final LocationStatisticsService locationStatisticsService;
 
     @Autowired
-    public IpLocationService(RestTemplate restTemplate, LocationRepository locationRepository, UserRepository userRepository, CacheManager cacheManager, RequestCounter requestCounter) {
-        this.restTemplate = restTemplate;
+    public IpLocationService(GeoResolver geoResolver, GeoLocationCache geoLocationCache, LocationRepository locationRepository,
+                             BatchInserter batchInserter, UserRepository userRepository, CacheManager cacheManager,
+                             RequestCounter requestCounter, LocationStatisticsService locationStatisticsService) {
+        this.geoResolver = geoResolver;
+        this.geoLocationCache = geoLocationCache;
         this.locationRepository = locationRepository;
+        this.batchInserter = batchInserter;
         this.userRepository = userRepository;
         this.cacheManager = cacheManager;
         this.requestCounter = requestCounter;
+        this.locationStatisticsService = locationStatisticsService;
     }
 
     @Transactional(readOnly = true)
-    public List<LocationResponseDto> findAll() {
+    public List<LocationResponseDto> findAll(long after, int limit) {
         requestCounter.increment();
-        String cacheKey = "findAll";
-        if (cacheManager.containsLocationListKey(cacheKey)) {
-            return cacheManager.getLocationList(cacheKey);
+        String cacheKey = CacheManager.pageKey(after, limit);
+        List<LocationResponseDto> cached = cacheManager.getLocationList(cacheKey);
+        if (cached != null) {
+            return cached;
         }
 
-        List<LocationResponseDto> result = locationRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        List<LocationResponseDto> result = locationRepository.findDtoPage(after, Limit.of(limit));
         cacheManager.putLocationList(cacheKey, result);
         return result;
     }
@@ -60,13 +81,13 @@ public class IpLocationService {
     @Transactional(readOnly = true)
     public LocationResponseDto findById(Long id) {
         requestCounter.increment();
-        if (cacheManager.containsLocationKey(id)) {
-            return cacheManager.getLocation(id);
+        LocationResponseDto cached = cacheManager.getLocation(id);
+        if (cached != null) {
+            return cached;
         }
 
-        Location location = locationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Location not found with id: " + id));
-        LocationResponseDto result = convertToDto(location);
+        LocationResponseDto result = locationRepository.findDtoById(id)
+                .orElseThrow(() -> new NotFoundException("Location not found with id: " + id));
         cacheManager.putLocation(id, result);
         return result;
     }
@@ -75,97 +96,170 @@ public class IpLocationService {
     public List<LocationResponseDto> findByUsername(String username) {
         requestCounter.increment();
         String cacheKey = "findByUsername:" + username;
-        if (cacheManager.containsLocationListKey(cacheKey)) {
-            return cacheManager.getLocationList(cacheKey);
+        List<LocationResponseDto> cached = cacheManager.getLocationList(cacheKey);
+        if (cached != null) {
+            return cached;
         }
 
-        List<Location> locations = locationRepository.findByUsername(username);
-        List<LocationResponseDto> result = locations.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        List<LocationResponseDto> result = locationRepository.findDtosByUsername(username);
         cacheManager.putLocationList(cacheKey, result);
         return result;
     }
 
-    @Transactional
+    // Not cached: a keyset page over idx_locations_user_id is cheap and would need its own invalidation.
+    @Transactional(readOnly = true)
+    public List<LocationResponseDto> findByUserId(Long userId, long after, int limit) {
+        requestCounter.increment();
+        List<LocationResponseDto> result = locationRepository.findDtoPageByUserId(userId, after, Limit.of(limit));
+        if (result.isEmpty() && !userRepository.existsById(userId)) {
+            throw new NotFoundException("User not found with id: " + userId);
+        }
+        return result;
+    }
+
+    // Not cached: range queries are ad-hoc and rarely repeat. The cursor is the last row's (ipValue, id).
+    @Transactional(readOnly = true)
+    public List<LocationResponseDto> findByRange(IpRange range, long afterIp, long afterId, int limit) {
+        requestCounter.increment();
+        long from = Math.max(range.getStart(), afterIp);
+        return locationRepository.findDtoRange(from, range.getEnd(), afterIp, afterId, Limit.of(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LocationResponseDto> findNear(double latitude, double longitude, double radiusKm, int limit) {
+        requestCounter.increment();
+        GeoBox box;
+        try {
+            box = GeoBox.around(latitude, longitude, radiusKm);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+        return findClosest(box, latitude, longitude, radiusKm, limit);
+    }
+
+    // Sorted by distance from the centre of the box.
+    @Transactional(readOnly = true)
+    public List<LocationResponseDto> findWithin(GeoBox box, int limit) {
+        requestCounter.increment();
+        return findClosest(box, box.getCenterLatitude(), box.getCenterLongitude(), Double.MAX_VALUE, limit);
+    }
+
+    // The database filters by exact distance, orders and limits; a box split at the antimeridian gives two
+    // ordered lists of at most limit rows each, merged here.
+    private List<LocationResponseDto> findClosest(GeoBox box, double latitude, double longitude, double radiusKm, int limit) {
+        List<NearbyLocation> nearest = new ArrayList<>();
+        for (GeoBox part : box.split()) {
+            nearest.addAll(locationRepository.findNearestInBox(part.getMinLatitude(), part.getMinLongitude(),
+                    part.getMaxLatitude(), part.getMaxLongitude(), latitude, longitude, radiusKm, GeoBox.EARTH_RADIUS_KM, limit));
+        }
+        nearest.sort(Comparator.comparingDouble(NearbyLocation::getDistanceKm).thenComparing(NearbyLocation::getId));
+        return nearest.stream().limit(limit).map(IpLocationService::toDto).collect(Collectors.toList());
+    }
+
+    // No surrounding transaction: the remote lookup must not hold a pooled JDBC connection.
     public LocationResponseDto create(String ipAddress, UserDto userDto) {
         requestCounter.increment();
         if (!IpAddressValidator.getInstance().isValidIpAddress(ipAddress)) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неверный формат IP-адреса: " + ipAddress);
+            throw new BadRequestException("Неверный формат IP-адреса: " + ipAddress);
         }
 
         User user = userRepository.findByUsername(userDto.getUsername())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден: " + userDto.getUsername()));
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + userDto.getUsername()));
 
+        GeoLocationDto geoLocation;
         try {
-            String apiUrl = "http://ip-api.com/json/" + ipAddress;
-            Location location = restTemplate.getForObject(apiUrl, Location.class);
-
-            if (location == null || location.getCity() == null || location.getCountry() == null) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неверный IP-адрес или ошибка API");
-            }
-
-            location.setIpAddress(ipAddress);
-            location.setUser(user);
-            Location savedLocation = locationRepository.save(location);
-            LocationResponseDto result = convertToDto(savedLocation);
-            cacheManager.invalidateLocationCache(savedLocation.getId(), userDto.getUsername());
-            return result;
+            geoLocation = geoLocationCache.get(ipAddress, geoResolver::resolve);
         } catch (HttpClientErrorException e) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неверный IP-адрес: " + ipAddress, e);
+            throw new BadRequestException("Неверный IP-адрес: " + ipAddress, e);
+        } catch (CircuitBreakerOpenException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Сервис геолокации временно недоступен", e);
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Ошибка получения данных о местоположении", e);
         }
+
+        if (geoLocation == null) {
+            throw new BadRequestException("Неверный IP-адрес или ошибка API");
+        }
+
+        Location savedLocation = locationRepository.save(toLocation(ipAddress, geoLocation, user));
+        LocationResponseDto result = convertToDto(savedLocation);
+        cacheManager.locationsCreated(List.of(result), userDto.getUsername());
+        locationStatisticsService.added(result.getCountry(), result.getContinent(), result.getCity());
+        return result;
     }
 
-    @Transactional
+    // Resolution runs outside any transaction; the batch inserter writes all rows in one short transaction.
     public List<LocationResponseDto> createBulk(List<String> ipAddresses, UserDto userDto) {
         requestCounter.increment();
-        User user = userRepository.findByUsername(userDto.getUsername())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден: " + userDto.getUsername()));
-
-        List<LocationResponseDto> results = ipAddresses.stream()
-                .filter(ip -> {
-                    boolean isValid = IpAddressValidator.getInstance().isValidIpAddress(ip);
-                    if (!isValid) {
-                        logger.warn("Пропущен IP-адрес {}: неверный формат", ip);
-                    }
-                    return isValid;
-                })
-                .map(ip -> {
-                    try {
-                        String apiUrl = "http://ip-api.com/json/" + ip;
-                        Location location = restTemplate.getForObject(apiUrl, Location.class);
-
-                        if (location == null || location.getCity() == null || location.getCountry() == null) {
-                            logger.warn("Пропущен IP-адрес {}: ошибка API или некорректные данные", ip);
-                            return null;
-                        }
-
-                        location.setIpAddress(ip);
-                        location.setUser(user);
-                        return locationRepository.save(location);
-                    } catch (HttpClientErrorException e) {
-                        logger.warn("Пропущен IP-адрес {}: неверный IP-адрес", ip, e);
-                        return null;
-                    } catch (Exception e) {
-                        logger.error("Ошибка обработки IP-адреса {}: {}", ip, e.getMessage(), e);
-                        return null;
-                    }
-                })
-                .filter(location -> location != null)
-                .map(this::convertToDto)
+        return createBulkWithResults(ipAddresses, userDto).stream()
+                .filter(result -> result.getStatus() == IpResultDto.Status.CREATED)
+                .map(IpResultDto::getLocation)
                 .collect(Collectors.toList());
+    }
+
+    // Same as createBulk, but reports the outcome of every input address in input order.
+    public List<IpResultDto> createBulkWithResults(List<String> ipAddresses, UserDto userDto) {
+        User user = userRepository.findByUsername(userDto.getUsername())
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден: " + userDto.getUsername()));
+
+        IpResultDto[] results = new IpResultDto[ipAddresses.size()];
+        List<String> validIpAddresses = new ArrayList<>();
+        for (int i = 0; i < ipAddresses.size(); i++) {
+            String ip = ipAddresses.get(i);
+            if (IpAddressValidator.getInstance().isValidIpAddress(ip)) {
+                validIpAddresses.add(ip);
+            } else {
+                logger.warn("Пропущен IP-адрес {}: неверный формат", ip);
+                results[i] = IpResultDto.invalid(ip, "Неверный формат IP-адреса");
+            }
+        }
+        if (validIpAddresses.isEmpty()) {
+            return Arrays.asList(results);
+        }
 
-        results.forEach(dto -> cacheManager.invalidateLocationCache(dto.getId(), userDto.getUsername()));
-        return results;
+        Map<String, GeoLocationDto> geoLocations;
+        try {
+            geoLocations = geoLocationCache.getAll(validIpAddresses, geoResolver::resolveAll);
+        } catch (RuntimeException e) {
+            logger.warn("Ошибка получения данных о местоположении для {} IP-адресов: {}", validIpAddresses.size(), e.getMessage());
+            geoLocations = Collections.emptyMap();
+        }
+
+        List<Location> locations = new ArrayList<>();
+        List<Integer> locationIndexes = new ArrayList<>();
+        for (int i = 0; i < ipAddresses.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String ip = ipAddresses.get(i);
+            GeoLocationDto geoLocation = geoLocations.get(ip);
+            if (geoLocation == null) {
+                logger.warn("Пропущен IP-адрес {}: ошибка API или некорректные данные", ip);
+                results[i] = IpResultDto.failed(ip, "Не удалось определить местоположение");
+            } else {
+                locations.add(toLocation(ip, geoLocation, user));
+                locationIndexes.add(i);
+            }
+        }
+
+        List<LocationResponseDto> created = locations.isEmpty()
+                ? Collections.emptyList()
+                : batchInserter.insertAll(locations, IpLocationService::convertToDto);
+        for (int i = 0; i < created.size(); i++) {
+            int index = locationIndexes.get(i);
+            results[index] = IpResultDto.created(ipAddresses.get(index), created.get(i));
+        }
+        cacheManager.locationsCreated(created, userDto.getUsername());
+        locationStatisticsService.addedAll(created);
+        return Arrays.asList(results);
     }
 
     @Transactional
     public LocationResponseDto update(Long id, LocationResponseDto locationDto) {
         requestCounter.increment();
-        Location location = locationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Location not found with id: " + id));
+        Location location = locationRepository.findByIdWithUser(id)
+                .orElseThrow(() -> new NotFoundException("Location not found with id: " + id));
+        locationStatisticsService.removed(location.getCountry(), location.getContinent(), location.getCity());
         location.setIpAddress(locationDto.getIpAddress());
         location.setCity(locationDto.getCity());
         location.setCountry(locationDto.getCountry());
@@ -175,21 +269,42 @@ public class IpLocationService {
         location.setTimezone(locationDto.getTimezone());
         Location updatedLocation = locationRepository.save(location);
         LocationResponseDto result = convertToDto(updatedLocation);
-        cacheManager.invalidateLocationCache(id, location.getUser().getUsername());
+        cacheManager.locationUpdated(result, location.getUser().getUsername());
+        locationStatisticsService.added(result.getCountry(), result.getContinent(), result.getCity());
         return result;
     }
 
     @Transactional
     public void delete(Long id) {
         requestCounter.increment();
-        Location location = locationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Location not found with id: " + id));
+        Location location = locationRepository.findByIdWithUser(id)
+                .orElseThrow(() -> new NotFoundException("Location not found with id: " + id));
         String username = location.getUser().getUsername();
         locationRepository.deleteById(id);
-        cacheManager.invalidateLocationCache(id, username);
+        cacheManager.locationDeleted(id, username);
+        locationStatisticsService.removed(location.getCountry(), location.getContinent(), location.getCity());
+    }
+
+    private Location toLocation(String ipAddress, GeoLocationDto geoLocation, User user) {
+        Location location = new Location();
+        location.setIpAddress(ipAddress);
+        location.setCity(geoLocation.getCity());
+        location.setCountry(geoLocation.getCountry());
+        location.setContinent(geoLocation.getContinent());
+        location.setLatitude(geoLocation.getLatitude());
+        location.setLongitude(geoLocation.getLongitude());
+        location.setTimezone(geoLocation.getTimezone());
+        location.setUser(user);
+        return location;
+    }
+
+    private static LocationResponseDto toDto(NearbyLocation location) {
+        return new LocationResponseDto(location.getId(), location.getIpAddress(), location.getCity(), location.getCountry(),
+                location.getContinent(), location.getLatitude(), location.getLongitude(), location.getTimezone());
     }
 
-    private LocationResponseDto convertToDto(Location location) {
+    // Package-private for the JMH benchmarks in src/jmh/java.
+    static LocationResponseDto convertToDto(Location location) {
         LocationResponseDto dto = new LocationResponseDto();
         dto.setId(location.getId());
         dto.setIpAddress(location.getIpAddress());
@@ -207,11 +322,11 @@ public class IpLocationService {
         if (locationDto == null || locationDto.getIpAddress() == null || locationDto.getIpAddress().trim().isEmpty() ||
                 locationDto.getCity() == null || locationDto.getCity().trim().isEmpty() ||
                 locationDto.getCountry() == null || locationDto.getCountry().trim().isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректные данные местоположения");
+            throw new BadRequestException("Некорректные данные местоположения");
         }
 
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Пользователь не найден с ID: " + userId));
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
 
         Location location = new Location();
         location.setIpAddress(locationDto.getIpAddress());
@@ -224,6 +339,7 @@ public class IpLocationService {
         location.setUser(user);
 
         Location savedLocation = locationRepository.save(location);
+        locationStatisticsService.added(savedLocation.getCountry(), savedLocation.getContinent(), savedLocation.getCity());
 
         LocationResponseDto response = new LocationResponseDto();
         response.setIpAddress(savedLocation.getIpAddress());
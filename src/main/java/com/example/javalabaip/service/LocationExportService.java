@@ -0,0 +1,103 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.repository.LocationRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class LocationExportService {
+
+    private static final String CSV_HEADER = "id,ipAddress,city,country,continent,latitude,longitude,timezone";
+
+    private final LocationRepository locationRepository;
+    private final ObjectMapper objectMapper;
+
+    public LocationExportService(LocationRepository locationRepository, ObjectMapper objectMapper) {
+        this.locationRepository = locationRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // Rows come from a forward-only cursor as constructor projections, so nothing enters the persistence context
+    // and heap use does not depend on table size.
+    @Transactional(readOnly = true)
+    public void export(OutputStream out, Format format) throws IOException {
+        try (Stream<LocationResponseDto> locations = locationRepository.streamAllDtos()) {
+            if (format == Format.CSV) {
+                writeCsv(out, locations.iterator());
+            } else {
+                writeNdjson(out, locations.iterator());
+            }
+        }
+    }
+
+    private void writeNdjson(OutputStream out, Iterator<LocationResponseDto> locations) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (locations.hasNext()) {
+                LocationResponseDto location = locations.next();
+                generator.writeStartObject();
+                generator.writeObjectField("id", location.getId());
+                generator.writeStringField("ipAddress", location.getIpAddress());
+                generator.writeStringField("city", location.getCity());
+                generator.writeStringField("country", location.getCountry());
+                generator.writeStringField("continent", location.getContinent());
+                generator.writeObjectField("latitude", location.getLatitude());
+                generator.writeObjectField("longitude", location.getLongitude());
+                generator.writeStringField("timezone", location.getTimezone());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void writeCsv(OutputStream out, Iterator<LocationResponseDto> locations) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (locations.hasNext()) {
+            LocationResponseDto location = locations.next();
+            writer.write(String.valueOf(location.getId()));
+            writeCsvField(writer, location.getIpAddress());
+            writeCsvField(writer, location.getCity());
+            writeCsvField(writer, location.getCountry());
+            writeCsvField(writer, location.getContinent());
+            writeCsvField(writer, location.getLatitude());
+            writeCsvField(writer, location.getLongitude());
+            writeCsvField(writer, location.getTimezone());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
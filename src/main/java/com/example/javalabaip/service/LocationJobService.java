@@ -0,0 +1,173 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.config.JobProperties;
+import com.example.javalabaip.dto.BulkJobDto;
+import com.example.javalabaip.dto.IpResultDto;
+import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.NotFoundException;
+import com.example.javalabaip.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class LocationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationJobService.class);
+
+    private final IpLocationService ipLocationService;
+    private final UserRepository userRepository;
+    private final int chunkSize;
+    private final long maxQueuedAddresses;
+    private final AtomicLong queuedAddresses = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    // Queued and running jobs never expire, however long they wait; only finished ones age out of the cache.
+    private final Map<String, Job> activeJobs = new ConcurrentHashMap<>();
+    private final Cache<String, Job> finishedJobs;
+
+    public LocationJobService(IpLocationService ipLocationService, UserRepository userRepository,
+                              JobProperties properties) {
+        this.ipLocationService = ipLocationService;
+        this.userRepository = userRepository;
+        this.chunkSize = properties.getChunkSize();
+        this.maxQueuedAddresses = properties.getMaxQueuedAddresses();
+        // Backpressure comes from the address budget in submit(), which also bounds the number of queued jobs.
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "location-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getRetention())
+                .build();
+    }
+
+    public BulkJobDto submit(List<String> ipAddresses, UserDto userDto) {
+        // Unknown users are rejected up front instead of surfacing as a failed job later.
+        if (userRepository.findByUsername(userDto.getUsername()).isEmpty()) {
+            throw new NotFoundException("Пользователь не найден: " + userDto.getUsername());
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), List.copyOf(ipAddresses));
+        // Every job holds at least one unit of the budget, so empty jobs cannot pile up in the queue either.
+        long weight = Math.max(1, job.ipAddresses.size());
+        if (weight > maxQueuedAddresses) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Задание больше допустимого размера очереди: " + maxQueuedAddresses + " IP-адресов");
+        }
+        if (queuedAddresses.addAndGet(weight) > maxQueuedAddresses) {
+            queuedAddresses.addAndGet(-weight);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Очередь заданий заполнена, повторите позже");
+        }
+        activeJobs.put(job.id, job);
+        executor.execute(() -> run(job, userDto, weight));
+        return job.toDto();
+    }
+
+    public BulkJobDto findById(String id) {
+        // Checked in this order because a finishing job is cached before it leaves activeJobs.
+        Job job = activeJobs.get(id);
+        if (job == null) {
+            job = finishedJobs.getIfPresent(id);
+        }
+        if (job == null) {
+            throw new NotFoundException("Job not found with id: " + id);
+        }
+        return job.toDto();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Addresses leave the budget as their chunks finish, so it bounds the work not yet done, queued or running.
+    private void run(Job job, UserDto userDto, long weight) {
+        long pending = weight;
+        job.start();
+        try {
+            for (int from = 0; from < job.ipAddresses.size(); from += chunkSize) {
+                List<String> chunk = job.ipAddresses.subList(from, Math.min(from + chunkSize, job.ipAddresses.size()));
+                job.addResults(ipLocationService.createBulkWithResults(chunk, userDto));
+                queuedAddresses.addAndGet(-chunk.size());
+                pending -= chunk.size();
+            }
+            job.complete();
+        } catch (RuntimeException e) {
+            logger.error("Задание {} завершилось с ошибкой: {}", job.id, e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            queuedAddresses.addAndGet(-pending);
+            finishedJobs.put(job.id, job);
+            activeJobs.remove(job.id);
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final List<String> ipAddresses;
+        private final List<IpResultDto> results = new ArrayList<>();
+        private BulkJobDto.Status status = BulkJobDto.Status.QUEUED;
+        private int succeeded;
+        private String error;
+
+        private Job(String id, List<String> ipAddresses) {
+            this.id = id;
+            this.ipAddresses = ipAddresses;
+        }
+
+        private synchronized void start() {
+            status = BulkJobDto.Status.RUNNING;
+        }
+
+        private synchronized void addResults(List<IpResultDto> chunkResults) {
+            results.addAll(chunkResults);
+            for (IpResultDto result : chunkResults) {
+                if (result.getStatus() == IpResultDto.Status.CREATED) {
+                    succeeded++;
+                }
+            }
+        }
+
+        private synchronized void complete() {
+            status = BulkJobDto.Status.COMPLETED;
+        }
+
+        private synchronized void fail(String message) {
+            status = BulkJobDto.Status.FAILED;
+            error = message;
+        }
+
+        private synchronized BulkJobDto toDto() {
+            BulkJobDto dto = new BulkJobDto();
+            dto.setId(id);
+            dto.setStatus(status);
+            dto.setTotal(ipAddresses.size());
+            dto.setProcessed(results.size());
+            dto.setSucceeded(succeeded);
+            dto.setFailed(results.size() - succeeded);
+            dto.setError(error);
+            dto.setResults(new ArrayList<>(results));
+            return dto;
+        }
+    }
+}
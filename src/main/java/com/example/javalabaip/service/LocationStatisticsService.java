@@ -0,0 +1,108 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.LocationCountDto;
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Location counts per country, continent and city, kept in memory and adjusted by every location write.
+@Service
+public class LocationStatisticsService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationStatisticsService.class);
+    private static final String UNKNOWN = "Unknown";
+
+    public enum Dimension {
+        COUNTRY, CONTINENT, CITY
+    }
+
+    private final LocationRepository locationRepository;
+    private final Map<Dimension, Map<String, LongAdder>> counters = new EnumMap<>(Dimension.class);
+
+    public LocationStatisticsService(LocationRepository locationRepository) {
+        this.locationRepository = locationRepository;
+        for (Dimension dimension : Dimension.values()) {
+            counters.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Runs once all beans exist and before the web server accepts requests, so no write can slip past the rebuild.
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<LocationCountDto> rows = locationRepository.countByPlace();
+        for (LocationCountDto row : rows) {
+            add(row.getCountry(), row.getContinent(), row.getCity(), row.getCount());
+        }
+        logger.info("Счётчики локаций восстановлены из {} групп", rows.size());
+    }
+
+    // Counters move only if the write commits, so a failed flush or commit cannot leave them out of step with the table.
+    public void added(String country, String continent, String city) {
+        TransactionCallbacks.afterCommit(() -> add(country, continent, city, 1));
+    }
+
+    public void addedAll(Collection<LocationResponseDto> locations) {
+        List<LocationResponseDto> snapshot = List.copyOf(locations);
+        TransactionCallbacks.afterCommit(() -> {
+            for (LocationResponseDto location : snapshot) {
+                add(location.getCountry(), location.getContinent(), location.getCity(), 1);
+            }
+        });
+    }
+
+    public void removed(String country, String continent, String city) {
+        TransactionCallbacks.afterCommit(() -> add(country, continent, city, -1));
+    }
+
+    // Ordered by count, largest first; top <= 0 returns every non-empty group.
+    public Map<String, Long> getCounts(Dimension dimension, int top) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        counters.get(dimension).forEach((key, adder) -> {
+            long count = adder.sum();
+            if (count > 0) {
+                entries.add(Map.entry(key, count));
+            }
+        });
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        int size = top > 0 ? Math.min(top, entries.size()) : entries.size();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            result.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return result;
+    }
+
+    private void add(String country, String continent, String city, long delta) {
+        String countryKey = keyOf(country);
+        increment(Dimension.COUNTRY, countryKey, delta);
+        increment(Dimension.CONTINENT, keyOf(continent), delta);
+        // City names repeat across countries, so cities are counted per country.
+        increment(Dimension.CITY, keyOf(city) + ", " + countryKey, delta);
+    }
+
+    private void increment(Dimension dimension, String key, long delta) {
+        Map<String, LongAdder> byKey = counters.get(dimension);
+        LongAdder adder = byKey.get(key);
+        if (adder == null) {
+            adder = byKey.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    private static String keyOf(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.config.GeoProperties;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.util.IpRangeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "geo.resolver", havingValue = "offline")
+public class OfflineGeoResolver implements GeoResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineGeoResolver.class);
+
+    private final IpRangeIndex index;
+
+    public OfflineGeoResolver(GeoProperties properties) {
+        Resource database = properties.getOffline().getDatabase();
+        if (database == null) {
+            throw new IllegalStateException("geo.offline.database must be set when geo.resolver=offline");
+        }
+        try (Reader reader = new InputStreamReader(database.getInputStream(), StandardCharsets.UTF_8)) {
+            this.index = IpRangeIndex.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить базу IP-диапазонов " + database, e);
+        }
+        logger.info("Загружено {} IP-диапазонов из {}", index.size(), database);
+    }
+
+    @Override
+    public GeoLocationDto resolve(String ipAddress) {
+        return index.find(ipAddress);
+    }
+
+    @Override
+    public Map<String, GeoLocationDto> resolveAll(List<String> ipAddresses) {
+        Map<String, GeoLocationDto> result = new HashMap<>();
+        for (String ipAddress : ipAddresses) {
+            GeoLocationDto geoLocation = index.find(ipAddress);
+            if (geoLocation != null) {
+                result.put(ipAddress, geoLocation);
+            }
+        }
+        return result;
+    }
+}
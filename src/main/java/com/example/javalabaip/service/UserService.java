@@ -1,18 +1,19 @@
 package com.example.javalabaip.service;
 
-import com.example.javalabaip.aspect.LoggingAspect;
 import com.example.javalabaip.cache.CacheManager;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.BadRequestException;
 import com.example.javalabaip.exception.GlobalExceptionHandler;
+import com.example.javalabaip.exception.NotFoundException;
+import com.example.javalabaip.model.Location;
 import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.BatchInserter;
 import com.example.javalabaip.repository.UserRepository;
 import com.example.javalabaip.util.RequestCounter;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.List;
@@ -22,28 +23,30 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final BatchInserter batchInserter;
     private final CacheManager cacheManager;
-    private final LoggingAspect loggingAspect;
     private final RequestCounter requestCounter;
+    private final LocationStatisticsService locationStatisticsService;
 
-    public UserService(UserRepository userRepository, CacheManager cacheManager, LoggingAspect loggingAspect, RequestCounter requestCounter) {
+    public UserService(UserRepository userRepository, BatchInserter batchInserter, CacheManager cacheManager,
+                       RequestCounter requestCounter, LocationStatisticsService locationStatisticsService) {
         this.userRepository = userRepository;
+        this.batchInserter = batchInserter;
         this.cacheManager = cacheManager;
-        this.loggingAspect = loggingAspect;
         this.requestCounter = requestCounter;
+        this.locationStatisticsService = locationStatisticsService;
     }
 
     @Transactional(readOnly = true)
-    public List<UserDto> findAll() {
+    public List<UserDto> findAll(long after, int limit) {
         requestCounter.increment();
-        String cacheKey = "findAll";
-        if (cacheManager.containsUserListKey(cacheKey)) {
-            return cacheManager.getUserList(cacheKey);
+        String cacheKey = CacheManager.pageKey(after, limit);
+        List<UserDto> cached = cacheManager.getUserList(cacheKey);
+        if (cached != null) {
+            return cached;
         }
 
-        List<UserDto> result = userRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        List<UserDto> result = userRepository.findDtoPage(after, Limit.of(limit));
         cacheManager.putUserList(cacheKey, result);
         return result;
     }
@@ -51,13 +54,13 @@ public class UserService {
     @Transactional(readOnly = true)
     public UserDto findById(Long id) {
         requestCounter.increment();
-        if (cacheManager.containsUserKey(id)) {
-            return cacheManager.getUser(id);
+        UserDto cached = cacheManager.getUser(id);
+        if (cached != null) {
+            return cached;
         }
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
-        UserDto result = convertToDto(user);
+        UserDto result = userRepository.findDtoById(id)
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
         cacheManager.putUser(id, result);
         return result;
     }
@@ -66,15 +69,15 @@ public class UserService {
     public UserDto findByUsername(String username) {
         requestCounter.increment();
         String cacheKey = "findByUsername:" + username;
-        if (cacheManager.containsUserListKey(cacheKey)) {
-            return cacheManager.getUserList(cacheKey).get(0);
+        List<UserDto> cached = cacheManager.getUserList(cacheKey);
+        if (cached != null) {
+            return cached.get(0);
         }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with username: " + username));
-        UserDto result = convertToDto(user);
+        UserDto result = userRepository.findDtoByUsername(username)
+                .orElseThrow(() -> new NotFoundException("User not found with username: " + username));
         cacheManager.putUserList(cacheKey, List.of(result));
-        cacheManager.putUser(user.getId(), result);
+        cacheManager.putUser(result.getId(), result);
         return result;
     }
 
@@ -85,7 +88,7 @@ public class UserService {
         user.setUsername(userDto.getUsername());
         User savedUser = userRepository.save(user);
         UserDto result = convertToDto(savedUser);
-        cacheManager.clearAllCache();
+        cacheManager.invalidateNewUsers(List.of(result));
         return result;
     }
 
@@ -93,23 +96,28 @@ public class UserService {
     public UserDto update(Long id, UserDto userDto) {
         requestCounter.increment();
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
         String oldUsername = user.getUsername();
         user.setUsername(userDto.getUsername());
         User updatedUser = userRepository.save(user);
         UserDto result = convertToDto(updatedUser);
-        cacheManager.clearAllCache();
+        cacheManager.invalidateRenamedUser(id, oldUsername, result.getUsername());
         return result;
     }
 
     @Transactional
     public void delete(Long id) {
         requestCounter.increment();
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User not found with id: " + id);
-        }
-        userRepository.deleteById(id);
-        cacheManager.clearAllCache();
+        // The cascade removes every location anyway, so they are loaded in the same query.
+        User user = userRepository.findByIdWithLocations(id)
+                .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
+        List<Location> locations = user.getLocations() == null ? List.of() : user.getLocations();
+        List<Long> locationIds = locations.stream().map(Location::getId).collect(Collectors.toList());
+        userRepository.delete(user);
+        cacheManager.invalidateDeletedUser(id, user.getUsername(), locationIds);
+        // Locations go with the user through the cascade, so their counts are released here.
+        locations.forEach(location ->
+                locationStatisticsService.removed(location.getCountry(), location.getContinent(), location.getCity()));
     }
 
     @Transactional
@@ -119,24 +127,21 @@ public class UserService {
             return Collections.emptyList();
         }
 
+        List<String> usernames = userDtos.stream().map(UserDto::getUsername).collect(Collectors.toList());
+        List<User> existingUsers = userRepository.findByUsernameIn(usernames);
+        if (!existingUsers.isEmpty()) {
+            throw new BadRequestException("Пользователь с именем " + existingUsers.get(0).getUsername() + " уже существует");
+        }
+
         List<User> users = userDtos.stream().map(dto -> {
-            if (userRepository.findByUsername(dto.getUsername()).isPresent()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Пользователь с именем " + dto.getUsername() + " уже существует");
-            }
             User user = new User();
             user.setUsername(dto.getUsername());
             return user;
         }).collect(Collectors.toList());
 
-        List<User> savedUsers = userRepository.saveAll(users);
-        List<UserDto> result = savedUsers.stream().map(user -> {
-            UserDto dto = new UserDto();
-            dto.setId(user.getId());
-            dto.setUsername(user.getUsername());
-            return dto;
-        }).collect(Collectors.toList());
+        List<UserDto> result = batchInserter.insertAll(users, this::convertToDto);
 
-        cacheManager.clearAllCache();
+        cacheManager.invalidateNewUsers(result);
         return result;
     }
 
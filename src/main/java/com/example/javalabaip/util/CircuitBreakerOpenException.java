@@ -0,0 +1,7 @@
+package com.example.javalabaip.util;
+
+public class CircuitBreakerOpenException extends RuntimeException {
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
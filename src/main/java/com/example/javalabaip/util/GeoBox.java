@@ -0,0 +1,114 @@
+package com.example.javalabaip.util;
+
+import java.util.List;
+
+// Latitude/longitude rectangle in degrees. minLongitude > maxLongitude means the box crosses the antimeridian.
+public final class GeoBox {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+
+    private GeoBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    public static GeoBox of(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        checkPoint(minLatitude, minLongitude);
+        checkPoint(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("Минимальная широта больше максимальной");
+        }
+        return new GeoBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    // Smallest box holding every point within radiusKm of the centre; exact distances are still checked by the caller.
+    public static GeoBox around(double latitude, double longitude, double radiusKm) {
+        checkPoint(latitude, longitude);
+        if (!(radiusKm > 0)) {
+            throw new IllegalArgumentException("Радиус должен быть положительным");
+        }
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        double deltaLatitude = Math.toDegrees(angle);
+        double minLatitude = latitude - deltaLatitude;
+        double maxLatitude = latitude + deltaLatitude;
+        if (minLatitude <= -90 || maxLatitude >= 90) {
+            // The circle covers a pole, so every longitude is in range.
+            return new GeoBox(Math.max(minLatitude, -90), -180, Math.min(maxLatitude, 90), 180);
+        }
+        double sin = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        if (sin >= 1) {
+            return new GeoBox(minLatitude, -180, maxLatitude, 180);
+        }
+        double deltaLongitude = Math.toDegrees(Math.asin(sin));
+        double minLongitude = longitude - deltaLongitude;
+        double maxLongitude = longitude + deltaLongitude;
+        if (minLongitude < -180) {
+            minLongitude += 360;
+        }
+        if (maxLongitude > 180) {
+            maxLongitude -= 360;
+        }
+        return new GeoBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    // Great-circle distance by the haversine formula.
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double sinLatitude = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double h = sinLatitude * sinLatitude
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // Boxes that do not cross the antimeridian, as the database index expects.
+    public List<GeoBox> split() {
+        if (minLongitude <= maxLongitude) {
+            return List.of(this);
+        }
+        return List.of(new GeoBox(minLatitude, minLongitude, maxLatitude, 180),
+                new GeoBox(minLatitude, -180, maxLatitude, maxLongitude));
+    }
+
+    public double getCenterLatitude() {
+        return (minLatitude + maxLatitude) / 2;
+    }
+
+    public double getCenterLongitude() {
+        double center = minLongitude <= maxLongitude
+                ? (minLongitude + maxLongitude) / 2
+                : (minLongitude + maxLongitude + 360) / 2;
+        return center > 180 ? center - 360 : center;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    private static void checkPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException("Широта должна быть в диапазоне [-90, 90]: " + latitude);
+        }
+        if (!(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Долгота должна быть в диапазоне [-180, 180]: " + longitude);
+        }
+    }
+}
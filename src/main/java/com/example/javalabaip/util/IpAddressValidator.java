@@ -1,10 +1,10 @@
 package com.example.javalabaip.util;
 
-import java.util.regex.Pattern;
-
 public class IpAddressValidator {
     private static final IpAddressValidator INSTANCE = new IpAddressValidator();
-    private static final Pattern IP_PATTERN = Pattern.compile("^([0-9]{1,3}\\.){3}[0-9]{1,3}$");
+    private static final int MAX_OCTET = 255;
+    private static final int MAX_OCTET_DIGITS = 3;
+    private static final int OCTET_COUNT = 4;
 
     private IpAddressValidator() {
     }
@@ -14,6 +14,37 @@ public class IpAddressValidator {
     }
 
     public boolean isValidIpAddress(String ipAddress) {
-        return ipAddress != null && IP_PATTERN.matcher(ipAddress).matches();
+        return parseIpv4(ipAddress) >= 0;
+    }
+
+    // Returns the IPv4 address as an unsigned 32-bit value, or -1 if the text is not a dotted quad.
+    public static long parseIpv4(CharSequence ipAddress) {
+        if (ipAddress == null) {
+            return -1;
+        }
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int octets = 0;
+        for (int i = 0; i < ipAddress.length(); i++) {
+            char c = ipAddress.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > MAX_OCTET_DIGITS || octet > MAX_OCTET) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && octets < OCTET_COUNT - 1) {
+                result = (result << 8) | octet;
+                octets++;
+                octet = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (digits == 0 || octets != OCTET_COUNT - 1) {
+            return -1;
+        }
+        return (result << 8) | octet;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.example.javalabaip.util;
+
+// Inclusive range of unsigned 32-bit IPv4 values.
+public final class IpRange {
+
+    private static final long MAX_IPV4 = 0xFFFFFFFFL;
+
+    private final long start;
+    private final long end;
+
+    private IpRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public static IpRange of(String startAddress, String endAddress) {
+        long start = IpAddressValidator.parseIpv4(startAddress);
+        long end = IpAddressValidator.parseIpv4(endAddress);
+        if (start < 0 || end < 0) {
+            throw new IllegalArgumentException("Неверный формат IP-адреса");
+        }
+        if (start > end) {
+            throw new IllegalArgumentException("Начало диапазона больше конца");
+        }
+        return new IpRange(start, end);
+    }
+
+    // Accepts a.b.c.d/n; host bits below the prefix are ignored, as in 10.1.2.3/8.
+    public static IpRange ofCidr(String cidr) {
+        int slash = cidr == null ? -1 : cidr.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Ожидается CIDR вида a.b.c.d/n");
+        }
+        long address = IpAddressValidator.parseIpv4(cidr.substring(0, slash));
+        int prefix;
+        try {
+            prefix = Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            prefix = -1;
+        }
+        if (address < 0 || prefix < 0 || prefix > 32) {
+            throw new IllegalArgumentException("Неверный CIDR: " + cidr);
+        }
+        long hostMask = MAX_IPV4 >>> prefix;
+        long start = address & ~hostMask & MAX_IPV4;
+        return new IpRange(start, start | hostMask);
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.javalabaip.util;
+
+import com.example.javalabaip.dto.GeoLocationDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Immutable IPv4 range table: sorted primitive arrays searched with a binary search, records shared between ranges.
+public final class IpRangeIndex {
+
+    private static final int COLUMNS = 8;
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] recordIds;
+    private final GeoLocationDto[] records;
+
+    private IpRangeIndex(int[] starts, int[] ends, int[] recordIds, GeoLocationDto[] records) {
+        this.starts = starts;
+        this.ends = ends;
+        this.recordIds = recordIds;
+        this.records = records;
+    }
+
+    // Rows are start,end,city,country,continent,lat,lon,timezone; bounds are dotted quads or unsigned integers.
+    public static IpRangeIndex load(Reader source) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        List<GeoLocationDto> records = new ArrayList<>();
+        Map<List<String>, Integer> recordIds = new HashMap<>();
+
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsvLine(line);
+            long start = parseBound(fields.get(0));
+            if (start < 0 && lineNumber == 1) {
+                continue;
+            }
+            long end = fields.size() > 1 ? parseBound(fields.get(1)) : -1;
+            if (fields.size() != COLUMNS || start < 0 || end < start) {
+                throw new IllegalArgumentException("Некорректная строка базы IP-диапазонов " + lineNumber + ": " + line);
+            }
+
+            List<String> key = fields.subList(2, COLUMNS);
+            Integer recordId = recordIds.get(key);
+            if (recordId == null) {
+                recordId = records.size();
+                recordIds.put(new ArrayList<>(key), recordId);
+                records.add(toRecord(key));
+            }
+            ranges.add(new long[] {start, end, recordId});
+        }
+
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        int[] starts = new int[ranges.size()];
+        int[] ends = new int[ranges.size()];
+        int[] ids = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            if (i > 0 && range[0] <= ranges.get(i - 1)[1]) {
+                throw new IllegalArgumentException("Пересекающиеся IP-диапазоны, начиная с " + range[0]);
+            }
+            starts[i] = (int) range[0];
+            ends[i] = (int) range[1];
+            ids[i] = (int) range[2];
+        }
+        return new IpRangeIndex(starts, ends, ids, records.toArray(new GeoLocationDto[0]));
+    }
+
+    public GeoLocationDto find(String ipAddress) {
+        long ip = IpAddressValidator.parseIpv4(ipAddress);
+        return ip < 0 ? null : find(ip);
+    }
+
+    public GeoLocationDto find(long ip) {
+        int key = (int) ip;
+        int low = 0;
+        int high = starts.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Integer.compareUnsigned(starts[mid], key) <= 0) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate < 0 || Integer.compareUnsigned(key, ends[candidate]) > 0) {
+            return null;
+        }
+        return records[recordIds[candidate]];
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    private static long parseBound(String value) {
+        if (value.indexOf('.') >= 0) {
+            return IpAddressValidator.parseIpv4(value);
+        }
+        try {
+            long bound = Long.parseLong(value);
+            return bound <= 0xFFFFFFFFL ? bound : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static GeoLocationDto toRecord(List<String> fields) {
+        GeoLocationDto record = new GeoLocationDto();
+        record.setCity(emptyToNull(fields.get(0)));
+        record.setCountry(emptyToNull(fields.get(1)));
+        record.setContinent(emptyToNull(fields.get(2)));
+        record.setLatitude(fields.get(3).isEmpty() ? null : Double.valueOf(fields.get(3)));
+        record.setLongitude(fields.get(4).isEmpty() ? null : Double.valueOf(fields.get(4)));
+        record.setTimezone(emptyToNull(fields.get(5)));
+        return record;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.javalabaip.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class OperationMetrics {
+
+    private static final String TIMER_NAME = "app.operation";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p99", "p999"};
+
+    private final MeterRegistry meterRegistry;
+    private final RequestCounter requestCounter;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public OperationMetrics(MeterRegistry meterRegistry, RequestCounter requestCounter) {
+        this.meterRegistry = meterRegistry;
+        this.requestCounter = requestCounter;
+    }
+
+    public void record(String operation, long nanos) {
+        requestCounter.increment(operation);
+        Timer timer = timers.get(operation);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(operation, this::newTimer);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Latencies are in milliseconds; counts come from RequestCounter and follow its reset. Percentiles and max come
+    // from the Micrometer timers, which a reset leaves alone: scrapers expect them to be cumulative, and both already
+    // cover only Micrometer's rolling window of the last few minutes.
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Long> counts = requestCounter.getOperationCounts();
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        timers.forEach((operation, timer) -> {
+            HistogramSnapshot histogram = timer.takeSnapshot();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", counts.getOrDefault(operation, 0L));
+            ValueAtPercentile[] values = histogram.percentileValues();
+            for (int i = 0; i < values.length && i < PERCENTILE_KEYS.length; i++) {
+                entry.put(PERCENTILE_KEYS[i], values[i].value(TimeUnit.MILLISECONDS));
+            }
+            entry.put("max", histogram.max(TimeUnit.MILLISECONDS));
+            result.put(operation, entry);
+        });
+        return result;
+    }
+
+    private Timer newTimer(String operation) {
+        return Timer.builder(TIMER_NAME)
+                .tag("operation", operation)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.javalabaip.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Token bucket whose budget is corrected from the server's own "remaining" and "reset" hints after every response.
+public class RateLimiter {
+
+    private final int permitsPerWindow;
+    private final long windowNanos;
+    private int remaining;
+    private int inFlight;
+    private long resetAt;
+
+    public RateLimiter(int permitsPerWindow, Duration window) {
+        this.permitsPerWindow = permitsPerWindow;
+        this.windowNanos = window.toNanos();
+        this.remaining = permitsPerWindow;
+        this.resetAt = System.nanoTime() + windowNanos;
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            if (now - resetAt >= 0) {
+                // Until a response says otherwise, assume the server opened a fresh window of the configured size.
+                remaining = Math.max(0, permitsPerWindow - inFlight);
+                resetAt = now + windowNanos;
+            }
+            if (remaining > 0) {
+                remaining--;
+                inFlight++;
+                return;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, resetAt - now);
+        }
+    }
+
+    // Completes an acquired call with the server's view: requests left and seconds until the window resets.
+    public synchronized void update(int serverRemaining, long resetSeconds) {
+        inFlight = Math.max(0, inFlight - 1);
+        long now = System.nanoTime();
+        long serverResetAt = now + TimeUnit.SECONDS.toNanos(resetSeconds);
+        // Calls still in flight were already counted locally but may not have reached the server yet.
+        int budget = Math.max(0, serverRemaining - inFlight);
+        // Responses can arrive out of order within a window, so the budget is only ever lowered there.
+        remaining = now - resetAt >= 0 ? budget : Math.min(remaining, budget);
+        resetAt = serverResetAt;
+        notifyAll();
+    }
+
+    // Completes an acquired call that produced no rate-limit headers.
+    public synchronized void release() {
+        inFlight = Math.max(0, inFlight - 1);
+        notifyAll();
+    }
+}
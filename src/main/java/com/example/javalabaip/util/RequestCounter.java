@@ -1,21 +1,44 @@
 package com.example.javalabaip.util;
 
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
 public class RequestCounter {
-    private long count;
+    // Swapped as a whole on reset, so the total and the per-operation counters are always cleared together.
+    private final AtomicReference<Counters> counters = new AtomicReference<>(new Counters());
+
+    public void increment() {
+        counters.get().total.increment();
+    }
+
+    public void increment(String operation) {
+        Map<String, LongAdder> byOperation = counters.get().byOperation;
+        LongAdder adder = byOperation.get(operation);
+        if (adder == null) {
+            adder = byOperation.computeIfAbsent(operation, key -> new LongAdder());
+        }
+        adder.increment();
+    }
 
-    public RequestCounter() {
-        this.count = 0;
+    public long getCount() {
+        return counters.get().total.sum();
     }
 
-    public synchronized void increment() {
-        count++;
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        counters.get().byOperation.forEach((operation, adder) -> result.put(operation, adder.sum()));
+        return result;
     }
 
-    public synchronized long getCount() {
-        return count;
+    public void reset() {
+        counters.set(new Counters());
     }
 
-    public synchronized void reset() {
-        count = 0;
+    private static final class Counters {
+        private final LongAdder total = new LongAdder();
+        private final Map<String, LongAdder> byOperation = new ConcurrentHashMap<>();
     }
-}
\ No newline at end of file
+}
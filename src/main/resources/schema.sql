@@ -0,0 +1,17 @@
+-- Runs after Hibernate's schema update. Moves the pooled id sequences past ids issued by the former identity columns;
+-- GREATEST keeps the statements idempotent across restarts.
+SELECT setval('locations_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM locations), (SELECT last_value FROM locations_seq), 1));
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users), (SELECT last_value FROM users_seq), 1));
+
+-- Backfills the numeric IPv4 column for rows written before it existed.
+UPDATE locations
+SET ip_value = split_part(ip_address, '.', 1)::bigint * 16777216 + split_part(ip_address, '.', 2)::bigint * 65536
+    + split_part(ip_address, '.', 3)::bigint * 256 + split_part(ip_address, '.', 4)::bigint
+WHERE ip_value IS NULL AND ip_address ~ '^(25[0-5]|2[0-4][0-9]|[01]?[0-9]?[0-9])(\.(25[0-5]|2[0-4][0-9]|[01]?[0-9]?[0-9])){3}$';
+CREATE INDEX IF NOT EXISTS idx_locations_ip_value ON locations (ip_value, id);
+
+-- GiST index over the coordinates for radius and bounding-box searches; core point/box types, no extension needed.
+CREATE INDEX IF NOT EXISTS idx_locations_position ON locations USING gist (point(longitude, latitude));
+
+-- Backs the per-user keyset listing; PostgreSQL does not index foreign keys on its own.
+CREATE INDEX IF NOT EXISTS idx_locations_user_id ON locations (user_id, id);
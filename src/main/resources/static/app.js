@@ -1,10 +1,21 @@
 const BASE_URL = 'http://localhost:8080/api';
 
+// Collection endpoints return one page at a time and point to the next one with a Link rel="next" header.
+async function fetchAllPages(url) {
+    const items = [];
+    while (url) {
+        const response = await fetch(url);
+        if (!response.ok) throw new Error(`HTTP error! status: ${response.status}`);
+        items.push(...await response.json());
+        const next = /<([^>]+)>;\s*rel="next"/.exec(response.headers.get('Link') || '');
+        url = next ? next[1] : null;
+    }
+    return items;
+}
+
 async function fetchUsers() {
     try {
-        const response = await fetch(`${BASE_URL}/users`);
-        if (!response.ok) throw new Error(`HTTP error! status: ${response.status}`);
-        const users = await response.json();
+        const users = await fetchAllPages(`${BASE_URL}/users`);
         const tbody = document.getElementById('users-tbody');
         tbody.innerHTML = '';
         users.forEach(user => {
@@ -26,9 +37,7 @@ async function fetchUsers() {
 
 async function fetchLocations() {
     try {
-        const response = await fetch(`${BASE_URL}/locations`);
-        if (!response.ok) throw new Error(`HTTP error! status: ${response.status}`);
-        const locations = await response.json();
+        const locations = await fetchAllPages(`${BASE_URL}/locations`);
         const tbody = document.getElementById('locations-tbody');
         tbody.innerHTML = '';
         locations.forEach(location => {
@@ -54,8 +63,8 @@ async function fetchRequestCount() {
     try {
         const response = await fetch(`${BASE_URL}/request-count`);
         if (!response.ok) throw new Error(`HTTP error! status: ${response.status}`);
-        const count = await response.json();
-        document.getElementById('request-count').textContent = count;
+        const counts = await response.json();
+        document.getElementById('request-count').textContent = counts.total;
     } catch (error) {
         console.error('Error fetching request count:', error);
     }
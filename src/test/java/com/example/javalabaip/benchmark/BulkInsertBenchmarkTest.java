@@ -0,0 +1,75 @@
+package com.example.javalabaip.benchmark;
+
+import com.example.javalabaip.model.Location;
+import com.example.javalabaip.repository.BatchInserter;
+import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Needs the configured PostgreSQL database: mvn test -Dbenchmark=true -Dtest=BulkInsertBenchmarkTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkInsertBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+    private static final int ROWS = 10_000;
+
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private LocationFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new LocationFixture("bulk", userRepository, entityManager, transactionTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void compareRowByRowAndBatchedInserts() {
+        List<Location> rowByRow = fixture.newLocations(ROWS);
+        long rowByRowNanos = LocationFixture.time(() -> transactionTemplate.executeWithoutResult(status -> rowByRow.forEach(location -> {
+            locationRepository.save(location);
+            locationRepository.flush();
+        })));
+        fixture.assertLocationCount(ROWS);
+
+        List<Location> batched = fixture.newLocations(ROWS);
+        long batchedNanos = LocationFixture.time(() -> batchInserter.insertAll(batched, Function.identity()));
+        fixture.assertLocationCount(2L * ROWS);
+
+        logger.info("Row-by-row: {} rows/s, batched: {} rows/s", rowsPerSecond(rowByRowNanos), rowsPerSecond(batchedNanos));
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return Math.round(ROWS / (nanos / 1_000_000_000.0));
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.javalabaip.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Boots the whole application on in-memory H2 against a local ip-api stub, so it needs neither PostgreSQL nor network:
+// mvn test -Dbenchmark=true -Dtest=EndToEndLoadTest
+// Tunable with -Dloadtest.threads, -Dloadtest.warmup and -Dloadtest.duration (seconds),
+// -Dloadtest.stub.latency-ms and -Dloadtest.stub.error-rate.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        // schema.sql holds PostgreSQL-only indexes; the near/within searches are left out of the mix for that reason.
+        "spring.sql.init.mode=never",
+        "geo.ip-api.rate-limit=1000000",
+        "geo.ip-api.batch-rate-limit=1000000",
+        "tracing.sample-rate=0"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EndToEndLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EndToEndLoadTest.class);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 16);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+    private static final long STUB_LATENCY_MS = Long.getLong("loadtest.stub.latency-ms", 20);
+    private static final double STUB_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0.01"));
+    private static final int USERS = 50;
+    private static final int SEED_LOCATIONS_PER_USER = 100;
+    private static final int BULK_SIZE = 20;
+    private static final List<String> ENDPOINTS = List.of("GET /api/locations/{id}", "GET /api/locations",
+            "GET /api/locations/by-username", "GET /api/users/{id}", "GET /api/users/{id}/locations",
+            "POST /api/location", "POST /api/locations/bulk", "POST /api/users");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(clientExecutor)
+            .build();
+    private static final ExecutorService stubExecutor = Executors.newCachedThreadPool();
+    private static HttpServer stub;
+    // Off while seeding, so the seeded counts are exact; the measured runs see the configured error rate.
+    private static volatile boolean injectErrors;
+
+    @LocalServerPort
+    private int port;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<String> usernames = new ArrayList<>();
+    private long[] locationIds;
+
+    // Started before the context so the application resolves every address through it.
+    @DynamicPropertySource
+    static void ipApiStub(DynamicPropertyRegistry registry) throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/json/", EndToEndLoadTest::handleSingle);
+        stub.createContext("/batch", EndToEndLoadTest::handleBatch);
+        stub.setExecutor(stubExecutor);
+        stub.start();
+        registry.add("geo.ip-api.base-url", () -> "http://localhost:" + stub.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        seed();
+        assertEquals(USERS, userIds.size());
+        assertEquals(USERS * SEED_LOCATIONS_PER_USER, locationIds.length);
+        injectErrors = true;
+        run(WARMUP, new ConcurrentHashMap<>());
+
+        Map<String, Stats> stats = new ConcurrentHashMap<>();
+        long elapsed = run(DURATION, stats);
+        report(new TreeMap<>(stats), elapsed);
+
+        long requests = 0;
+        long errors = 0;
+        for (String endpoint : ENDPOINTS) {
+            Stats endpointStats = stats.get(endpoint);
+            assertTrue(endpointStats != null && endpointStats.latencies.size() > 0, endpoint + " was never requested");
+            requests += endpointStats.latencies.size();
+            errors += endpointStats.errors.sum();
+        }
+        // Reads never reach the stub and a write makes at most one stub call that can fail it, so the share of
+        // failed requests cannot exceed the stub's error rate.
+        assertTrue(errors <= requests * STUB_ERROR_RATE,
+                errors + " of " + requests + " requests failed with stub error rate " + STUB_ERROR_RATE);
+    }
+
+    private void seed() throws Exception {
+        List<Long> seeded = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String username = "load-" + i + "-" + System.nanoTime();
+            JsonNode user = objectMapper.readTree(send(post("/api/users", Map.of("username", username))).body());
+            userIds.add(user.get("id").asLong());
+            usernames.add(username);
+
+            JsonNode created = objectMapper.readTree(send(post("/api/locations/bulk", bulkRequest(username, SEED_LOCATIONS_PER_USER))).body());
+            for (JsonNode location : created) {
+                seeded.add(location.get("id").asLong());
+            }
+        }
+        locationIds = seeded.stream().mapToLong(Long::longValue).toArray();
+        logger.info("Seeded {} users and {} locations", userIds.size(), locationIds.length);
+    }
+
+    // Every worker issues requests back to back until the deadline; returns the wall time in nanoseconds.
+    private long run(Duration duration, Map<String, Stats> stats) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (int i = 0; i < THREADS; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    request(stats);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    // Roughly 80% reads, 20% writes, with single and bulk lookups going through the stub.
+    private void request(Map<String, Stats> stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(userIds.size());
+        int roll = random.nextInt(100);
+        String endpoint;
+        HttpRequest request;
+        if (roll < 25) {
+            endpoint = "GET /api/locations/{id}";
+            request = get("/api/locations/" + locationIds[random.nextInt(locationIds.length)]);
+        } else if (roll < 45) {
+            endpoint = "GET /api/locations";
+            request = get("/api/locations?after=" + locationIds[random.nextInt(locationIds.length)] + "&limit=50");
+        } else if (roll < 55) {
+            endpoint = "GET /api/locations/by-username";
+            request = get("/api/locations/by-username?username=" + usernames.get(user));
+        } else if (roll < 70) {
+            endpoint = "GET /api/users/{id}";
+            request = get("/api/users/" + userIds.get(user));
+        } else if (roll < 80) {
+            endpoint = "GET /api/users/{id}/locations";
+            request = get("/api/users/" + userIds.get(user) + "/locations?limit=50");
+        } else if (roll < 93) {
+            endpoint = "POST /api/location";
+            request = post("/api/location?ip=" + randomIp(), Map.of("username", usernames.get(user)));
+        } else if (roll < 97) {
+            endpoint = "POST /api/locations/bulk";
+            request = post("/api/locations/bulk", bulkRequest(usernames.get(user), BULK_SIZE));
+        } else {
+            endpoint = "POST /api/users";
+            request = post("/api/users", Map.of("username", "load-" + System.nanoTime() + "-" + random.nextInt()));
+        }
+
+        Stats endpointStats = stats.computeIfAbsent(endpoint, key -> new Stats());
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode() / 100 == 2;
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        endpointStats.record(System.nanoTime() - start, ok);
+    }
+
+    private static void report(Map<String, Stats> stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        logger.info(String.format(Locale.ROOT, "%d threads for %.1f s, stub latency %d ms, stub error rate %.3f",
+                THREADS, seconds, STUB_LATENCY_MS, STUB_ERROR_RATE));
+        logger.info(String.format(Locale.ROOT, "%-32s %9s %7s %9s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        long total = 0;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            long[] latencies = entry.getValue().sorted();
+            total += latencies.length;
+            logger.info(String.format(Locale.ROOT, "%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f",
+                    entry.getKey(), latencies.length, entry.getValue().errors.sum(), latencies.length / seconds,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    percentile(latencies, 1.0)));
+        }
+        logger.info(String.format(Locale.ROOT, "%-32s %9d %7s %9.1f", "total", total, "", total / seconds));
+    }
+
+    // Nearest-rank percentile in milliseconds.
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static Map<String, Object> bulkRequest(String username, int size) {
+        List<String> ipAddresses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ipAddresses.add(randomIp());
+        }
+        return Map.of("ipAddresses", ipAddresses, "userDto", Map.of("username", username));
+    }
+
+    // Random unicast addresses, mostly unseen, so most lookups miss the geo cache and reach the stub.
+    private static String randomIp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextInt(1, 224) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 255);
+    }
+
+    private static void handleSingle(HttpExchange exchange) throws IOException {
+        String ip = exchange.getRequestURI().getPath().substring("/json/".length());
+        respond(exchange, objectMapper.writeValueAsBytes(geo(ip)));
+    }
+
+    private static void handleBatch(HttpExchange exchange) throws IOException {
+        String[] ips = objectMapper.readValue(exchange.getRequestBody(), String[].class);
+        respond(exchange, objectMapper.writeValueAsBytes(Arrays.stream(ips).map(EndToEndLoadTest::geo).toList()));
+    }
+
+    // No X-Rl/X-Ttl headers: the stub does not rate limit, so the client relies on its own (raised) limits.
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        try {
+            if (STUB_LATENCY_MS > 0) {
+                Thread.sleep(STUB_LATENCY_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (injectErrors && ThreadLocalRandom.current().nextDouble() < STUB_ERROR_RATE) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Deterministic per address, spread over a handful of countries so the statistics counters see real keys.
+    private static Map<String, Object> geo(String ip) {
+        int hash = ip.hashCode();
+        int place = Math.floorMod(hash, 8);
+        return Map.of(
+                "query", ip,
+                "status", "success",
+                "city", "City " + place,
+                "country", "Country " + place,
+                "continent", place < 4 ? "Europe" : "Asia",
+                "lat", Math.floorMod(hash, 17_000) / 100.0 - 85,
+                "lon", Math.floorMod(hash >>> 7, 36_000) / 100.0 - 180,
+                "timezone", "UTC");
+    }
+
+    private static final class Stats {
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        private long[] sorted() {
+            long[] result = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.javalabaip.benchmark;
+
+import com.example.javalabaip.repository.BatchInserter;
+import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.repository.UserRepository;
+import com.example.javalabaip.util.GeoBox;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Needs the configured PostgreSQL database: mvn test -Dbenchmark=true -Dtest=GeoSearchBenchmarkTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GeoSearchBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoSearchBenchmarkTest.class);
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final int QUERIES = 50;
+    private static final double RADIUS_KM = 50;
+    private static final int LIMIT = 1000;
+
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Random random = new Random(42);
+
+    private LocationFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new LocationFixture("geo", userRepository, entityManager, transactionTemplate);
+        fixture.insert(batchInserter, ROWS);
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery("ANALYZE locations").executeUpdate());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void compareIndexedSearchAndFullScan() {
+        double[][] centres = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            centres[i] = new double[]{random.nextDouble() * 120 - 60, random.nextDouble() * 340 - 170};
+        }
+        // Both plans run once before timing, so each measured round reads from a warm buffer cache.
+        run(centres, true);
+        run(centres, false);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<List<Long>> indexed = new ArrayList<>();
+            List<List<Long>> fullScan = new ArrayList<>();
+            long indexedNanos = LocationFixture.time(() -> indexed.add(run(centres, true)));
+            long fullScanNanos = LocationFixture.time(() -> fullScan.add(run(centres, false)));
+
+            assertFalse(indexed.get(0).isEmpty());
+            assertEquals(indexed, fullScan);
+            logger.info("{} radius queries over {} rows: GiST index {} ms, full scan {} ms",
+                    QUERIES, ROWS, indexedNanos / 1_000_000, fullScanNanos / 1_000_000);
+        }
+    }
+
+    // The same findNearestInBox query on both sides; without index and bitmap scans the planner can only read every row.
+    private List<Long> run(double[][] centres, boolean useIndex) {
+        return transactionTemplate.execute(status -> {
+            if (!useIndex) {
+                entityManager.createNativeQuery("SET LOCAL enable_indexscan = off").executeUpdate();
+                entityManager.createNativeQuery("SET LOCAL enable_bitmapscan = off").executeUpdate();
+            }
+            List<Long> ids = new ArrayList<>();
+            for (double[] centre : centres) {
+                GeoBox box = GeoBox.around(centre[0], centre[1], RADIUS_KM);
+                locationRepository.findNearestInBox(box.getMinLatitude(), box.getMinLongitude(), box.getMaxLatitude(),
+                                box.getMaxLongitude(), centre[0], centre[1], RADIUS_KM, GeoBox.EARTH_RADIUS_KM, LIMIT)
+                        .forEach(location -> ids.add(location.getId()));
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.javalabaip.benchmark;
+
+import com.example.javalabaip.model.Location;
+import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.BatchInserter;
+import com.example.javalabaip.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// A throwaway user owning generated locations, shared by the database benchmarks; close() removes both.
+final class LocationFixture implements AutoCloseable {
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Random random = new Random(42);
+    private final User user;
+    private int generated;
+
+    LocationFixture(String name, UserRepository userRepository, EntityManager entityManager,
+                    TransactionTemplate transactionTemplate) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        User newUser = new User();
+        newUser.setUsername(name + "-benchmark-" + System.nanoTime());
+        this.user = userRepository.save(newUser);
+    }
+
+    User getUser() {
+        return user;
+    }
+
+    // Unsaved rows with distinct private addresses and coordinates spread over the inhabited latitudes.
+    List<Location> newLocations(int rows) {
+        List<Location> locations = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int n = generated++;
+            Location location = new Location();
+            location.setIpAddress("10." + (n >> 16 & 255) + "." + (n >> 8 & 255) + "." + (n & 255));
+            location.setCity("City");
+            location.setCountry("Country");
+            location.setLatitude(random.nextDouble() * 140 - 70);
+            location.setLongitude(random.nextDouble() * 360 - 180);
+            location.setUser(user);
+            locations.add(location);
+        }
+        return locations;
+    }
+
+    void insert(BatchInserter batchInserter, int rows) {
+        batchInserter.insertAll(newLocations(rows), Function.identity());
+        assertLocationCount(rows);
+    }
+
+    void assertLocationCount(long expected) {
+        long count = entityManager.createQuery("SELECT COUNT(l) FROM Location l WHERE l.user.id = :userId", Long.class)
+                .setParameter("userId", user.getId())
+                .getSingleResult();
+        assertEquals(expected, count);
+    }
+
+    static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    // A bulk delete first, so removing the user does not load every location through the cascade.
+    @Override
+    public void close() {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("DELETE FROM Location l WHERE l.user.id = :userId")
+                .setParameter("userId", user.getId())
+                .executeUpdate());
+        userRepository.deleteById(user.getId());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.javalabaip.benchmark;
+
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.model.Location;
+import com.example.javalabaip.repository.BatchInserter;
+import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Needs the configured PostgreSQL database: mvn test -Dbenchmark=true -Dtest=ProjectionBenchmarkTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProjectionBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectionBenchmarkTest.class);
+    private static final int ROWS = 100_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private BatchInserter batchInserter;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private LocationFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new LocationFixture("projection", userRepository, entityManager, transactionTemplate);
+        fixture.insert(batchInserter, ROWS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void compareEntityHydrationAndProjection() {
+        String username = fixture.getUser().getUsername();
+        Supplier<List<Long>> entities = () -> locationRepository.findByUsername(username).stream()
+                .map(Location::getId).sorted().toList();
+        Supplier<List<Long>> projections = () -> locationRepository.findDtosByUsername(username).stream()
+                .map(LocationResponseDto::getId).sorted().toList();
+        // One untimed pass of each query, so JIT compilation and plan caching stay out of the measured rounds.
+        run(entities);
+        run(projections);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Measurement entityRun = run(entities);
+            Measurement projectionRun = run(projections);
+
+            assertEquals(ROWS, entityRun.ids().size());
+            assertEquals(entityRun.ids(), projectionRun.ids());
+            logger.info("Entities: {} ms, {} MB allocated; projections: {} ms, {} MB allocated",
+                    entityRun.nanos() / 1_000_000, entityRun.bytes() >> 20,
+                    projectionRun.nanos() / 1_000_000, projectionRun.bytes() >> 20);
+        }
+    }
+
+    private Measurement run(Supplier<List<Long>> query) {
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        List<Long> ids = transactionTemplate.execute(status -> query.get());
+        long nanos = System.nanoTime() - start;
+        return new Measurement(nanos, threadMXBean.getThreadAllocatedBytes(threadId) - bytesBefore, ids);
+    }
+
+    private record Measurement(long nanos, long bytes, List<Long> ids) {
+    }
+}
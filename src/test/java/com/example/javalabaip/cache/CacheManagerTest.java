@@ -0,0 +1,346 @@
+package com.example.javalabaip.cache;
+
+import com.example.javalabaip.config.CacheProperties;
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.dto.UserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheManagerTest {
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheManager(new CacheProperties());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать null для отсутствующего ключа")
+    void shouldReturnNullForMissingKey() {
+        assertNull(cacheManager.getLocation(1L));
+        assertNull(cacheManager.getLocationList(CacheManager.pageKey(0, 100)));
+        assertNull(cacheManager.getUser(1L));
+        assertNull(cacheManager.getUserList(CacheManager.pageKey(0, 100)));
+    }
+
+    @Test
+    @DisplayName("Должен возвращать сохранённое значение")
+    void shouldReturnStoredValue() {
+        LocationResponseDto location = new LocationResponseDto();
+        location.setId(1L);
+        cacheManager.putLocation(1L, location);
+
+        assertEquals(location, cacheManager.getLocation(1L));
+        assertTrue(cacheManager.containsLocationKey(1L));
+    }
+
+    @Test
+    @DisplayName("Должен удалять запись и списки при инвалидации локации")
+    void shouldInvalidateLocationEntryAndLists() {
+        LocationResponseDto location = new LocationResponseDto();
+        location.setId(1L);
+        cacheManager.putLocation(1L, location);
+        cacheManager.putLocationList(CacheManager.pageKey(0, 100), List.of(location));
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location));
+
+        cacheManager.invalidateLocationCache(1L, "testuser");
+
+        assertFalse(cacheManager.containsLocationKey(1L));
+        assertFalse(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 100)));
+        assertFalse(cacheManager.containsLocationListKey("findByUsername:testuser"));
+    }
+
+    @Test
+    @DisplayName("Должен удалять только страницы, диапазон которых содержит ID")
+    void shouldInvalidateOnlyPagesCoveringId() {
+        cacheManager.putLocationList(CacheManager.pageKey(0, 2), List.of(location(1L), location(2L)));
+        cacheManager.putLocationList(CacheManager.pageKey(2, 2), List.of(location(3L), location(4L)));
+        cacheManager.putLocationList(CacheManager.pageKey(4, 2), List.of(location(5L)));
+
+        cacheManager.invalidateLocationCache(3L, "testuser");
+
+        assertTrue(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 2)));
+        assertFalse(cacheManager.containsLocationListKey(CacheManager.pageKey(2, 2)));
+        assertTrue(cacheManager.containsLocationListKey(CacheManager.pageKey(4, 2)));
+
+        cacheManager.invalidateLocationCache(6L, "testuser");
+
+        assertTrue(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 2)));
+        assertFalse(cacheManager.containsLocationListKey(CacheManager.pageKey(4, 2)));
+    }
+
+    @Test
+    @DisplayName("Должен дописывать созданную локацию в хвостовую страницу и список пользователя")
+    void shouldAppendCreatedLocationToTailPageAndUserList() {
+        cacheManager.putLocationList(CacheManager.pageKey(0, 2), List.of(location(1L), location(2L)));
+        cacheManager.putLocationList(CacheManager.pageKey(2, 2), List.of(location(3L)));
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(1L)));
+
+        cacheManager.locationsCreated(List.of(location(4L)), "testuser");
+
+        assertEquals(List.of(location(1L), location(2L)), cacheManager.getLocationList(CacheManager.pageKey(0, 2)));
+        assertEquals(List.of(location(3L), location(4L)), cacheManager.getLocationList(CacheManager.pageKey(2, 2)));
+        assertEquals(List.of(location(1L), location(4L)), cacheManager.getLocationList("findByUsername:testuser"));
+        assertEquals(location(4L), cacheManager.getLocation(4L));
+    }
+
+    @Test
+    @DisplayName("Должен заменять обновлённую локацию по ID в закэшированных списках")
+    void shouldReplaceUpdatedLocationInLists() {
+        cacheManager.putLocationList(CacheManager.pageKey(0, 2), List.of(location(1L), location(2L)));
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(2L)));
+        LocationResponseDto updated = location(2L);
+        updated.setCity("NewCity");
+
+        cacheManager.locationUpdated(updated, "testuser");
+
+        assertEquals("NewCity", cacheManager.getLocationList(CacheManager.pageKey(0, 2)).get(1).getCity());
+        assertEquals("NewCity", cacheManager.getLocationList("findByUsername:testuser").get(0).getCity());
+    }
+
+    @Test
+    @DisplayName("Должен удалять локацию из списков и сбрасывать полные страницы, которые нельзя дополнить")
+    void shouldRemoveDeletedLocationAndDropFullPages() {
+        cacheManager.putLocationList(CacheManager.pageKey(0, 2), List.of(location(1L), location(2L)));
+        cacheManager.putLocationList(CacheManager.pageKey(2, 2), List.of(location(3L)));
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(1L), location(3L)));
+
+        cacheManager.locationDeleted(1L, "testuser");
+        cacheManager.locationDeleted(3L, "testuser");
+
+        assertFalse(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 2)));
+        assertEquals(List.of(), cacheManager.getLocationList(CacheManager.pageKey(2, 2)));
+        assertEquals(List.of(), cacheManager.getLocationList("findByUsername:testuser"));
+    }
+
+    @Test
+    @DisplayName("Должен сбрасывать списки длиннее порога вместо их изменения")
+    void shouldDropListsAboveIncrementalLimit() {
+        CacheProperties properties = new CacheProperties();
+        properties.setIncrementalMaxListSize(1);
+        cacheManager = new CacheManager(properties);
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(1L), location(2L)));
+
+        cacheManager.locationsCreated(List.of(location(3L)), "testuser");
+
+        assertFalse(cacheManager.containsLocationListKey("findByUsername:testuser"));
+    }
+
+    @Test
+    @DisplayName("Должен затрагивать только списки пользователей при создании пользователя")
+    void shouldInvalidateOnlyUserListsOnNewUser() {
+        cacheManager.putUser(1L, user(1L, "first"));
+        cacheManager.putUserList(CacheManager.pageKey(0, 100), List.of(user(1L, "first")));
+        cacheManager.putLocation(1L, location(1L));
+        cacheManager.putLocationList(CacheManager.pageKey(0, 100), List.of(location(1L)));
+
+        cacheManager.invalidateNewUsers(List.of(user(2L, "second")));
+
+        assertTrue(cacheManager.containsUserKey(1L));
+        assertFalse(cacheManager.containsUserListKey(CacheManager.pageKey(0, 100)));
+        assertTrue(cacheManager.containsLocationKey(1L));
+        assertTrue(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 100)));
+    }
+
+    @Test
+    @DisplayName("Должен удалять ключи старого и нового имени при переименовании пользователя")
+    void shouldInvalidateBothNamesOnRename() {
+        cacheManager.putUser(1L, user(1L, "old"));
+        cacheManager.putUser(2L, user(2L, "other"));
+        cacheManager.putUserList("findByUsername:old", List.of(user(1L, "old")));
+        cacheManager.putUserList("findByUsername:new", List.of(user(1L, "old")));
+        cacheManager.putLocationList("findByUsername:old", List.of(location(1L)));
+        cacheManager.putLocation(1L, location(1L));
+
+        cacheManager.invalidateRenamedUser(1L, "old", "new");
+
+        assertFalse(cacheManager.containsUserKey(1L));
+        assertTrue(cacheManager.containsUserKey(2L));
+        assertFalse(cacheManager.containsUserListKey("findByUsername:old"));
+        assertFalse(cacheManager.containsUserListKey("findByUsername:new"));
+        assertFalse(cacheManager.containsLocationListKey("findByUsername:old"));
+        assertTrue(cacheManager.containsLocationKey(1L));
+    }
+
+    @Test
+    @DisplayName("Должен удалять пользователя и только его локации при удалении пользователя")
+    void shouldInvalidateOwnLocationsOnUserDelete() {
+        cacheManager.putUser(1L, user(1L, "testuser"));
+        cacheManager.putLocation(1L, location(1L));
+        cacheManager.putLocation(2L, location(2L));
+        cacheManager.putLocationList(CacheManager.pageKey(0, 1), List.of(location(1L)));
+        cacheManager.putLocationList(CacheManager.pageKey(1, 1), List.of(location(2L)));
+
+        cacheManager.invalidateDeletedUser(1L, "testuser", List.of(1L));
+
+        assertFalse(cacheManager.containsUserKey(1L));
+        assertFalse(cacheManager.containsLocationKey(1L));
+        assertTrue(cacheManager.containsLocationKey(2L));
+        assertFalse(cacheManager.containsLocationListKey(CacheManager.pageKey(0, 1)));
+        assertTrue(cacheManager.containsLocationListKey(CacheManager.pageKey(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Должен считать долю попаданий по регионам")
+    void shouldReportHitRatioPerRegion() {
+        cacheManager.putLocation(1L, location(1L));
+        cacheManager.getLocation(1L);
+        cacheManager.getLocation(2L);
+
+        assertEquals(0.5, cacheManager.getHitRatios().get("locations"));
+    }
+
+    @Test
+    @DisplayName("Должен очищать все регионы кэша")
+    void shouldClearAllRegions() {
+        UserDto user = new UserDto();
+        user.setId(1L);
+        cacheManager.putUser(1L, user);
+        cacheManager.putUserList(CacheManager.pageKey(0, 100), List.of(user));
+        cacheManager.putLocation(1L, new LocationResponseDto());
+
+        cacheManager.clearAllCache();
+
+        assertNull(cacheManager.getUser(1L));
+        assertNull(cacheManager.getUserList(CacheManager.pageKey(0, 100)));
+        assertNull(cacheManager.getLocation(1L));
+    }
+
+    @Test
+    @DisplayName("Должен менять ETag локации и списка только при изменении локации")
+    void shouldChangeLocationETagOnUpdate() {
+        String single = cacheManager.locationETag(1L);
+        String other = cacheManager.locationETag(2L);
+        String list = cacheManager.locationsETag();
+        assertEquals(single, cacheManager.locationETag(1L));
+
+        cacheManager.locationUpdated(location(1L), "testuser");
+
+        assertNotEquals(single, cacheManager.locationETag(1L));
+        assertNotEquals(list, cacheManager.locationsETag());
+        assertEquals(other, cacheManager.locationETag(2L));
+        assertTrue(cacheManager.locationETag(1L).startsWith("\""));
+    }
+
+    @Test
+    @DisplayName("Должен менять ETag списка, но не существующих записей при создании")
+    void shouldChangeOnlyListETagOnCreate() {
+        String existing = cacheManager.locationETag(1L);
+        String locations = cacheManager.locationsETag();
+        String users = cacheManager.usersETag();
+
+        cacheManager.locationsCreated(List.of(location(2L)), "testuser");
+        cacheManager.invalidateNewUsers(List.of(user(3L, "newuser")));
+
+        assertEquals(existing, cacheManager.locationETag(1L));
+        assertNotEquals(locations, cacheManager.locationsETag());
+        assertNotEquals(users, cacheManager.usersETag());
+    }
+
+    @Test
+    @DisplayName("Должен менять ETag пользователя и его локаций при удалении")
+    void shouldChangeETagsOnUserDelete() {
+        String user = cacheManager.userETag(1L);
+        String location = cacheManager.locationETag(5L);
+
+        cacheManager.invalidateDeletedUser(1L, "testuser", List.of(5L));
+
+        assertNotEquals(user, cacheManager.userETag(1L));
+        assertNotEquals(location, cacheManager.locationETag(5L));
+    }
+
+    @Test
+    @DisplayName("Должен менять кэш и ETag только после фиксации транзакции")
+    void shouldApplyLocationChangeOnlyAfterCommit() {
+        cacheManager.putLocation(1L, location(1L));
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(1L)));
+        String before = cacheManager.locationETag(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheManager.locationDeleted(1L, "testuser");
+            assertTrue(cacheManager.containsLocationKey(1L));
+            assertEquals(before, cacheManager.locationETag(1L));
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(cacheManager.containsLocationKey(1L));
+        assertEquals(List.of(), cacheManager.getLocationList("findByUsername:testuser"));
+        assertNotEquals(before, cacheManager.locationETag(1L));
+    }
+
+    @Test
+    @DisplayName("Не должен менять кэш и ETag при откате транзакции")
+    void shouldLeaveCacheUntouchedOnRollback() {
+        cacheManager.putLocationList("findByUsername:testuser", List.of(location(1L)));
+        String before = cacheManager.locationsETag();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheManager.locationsCreated(List.of(location(2L)), "testuser");
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(cacheManager.containsLocationKey(2L));
+        assertEquals(List.of(location(1L)), cacheManager.getLocationList("findByUsername:testuser"));
+        assertEquals(before, cacheManager.locationsETag());
+    }
+
+    @Test
+    @DisplayName("Не должен сбрасывать пользователя и его локации при откате удаления")
+    void shouldKeepUserEntriesOnRolledBackDelete() {
+        cacheManager.putUser(1L, user(1L, "testuser"));
+        cacheManager.putLocation(5L, location(5L));
+        String before = cacheManager.userETag(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheManager.invalidateDeletedUser(1L, "testuser", List.of(5L));
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(cacheManager.containsUserKey(1L));
+        assertTrue(cacheManager.containsLocationKey(5L));
+        assertEquals(before, cacheManager.userETag(1L));
+    }
+
+    @Test
+    @DisplayName("Должен менять все ETag при очистке кэша")
+    void shouldChangeAllETagsOnClear() {
+        String location = cacheManager.locationETag(1L);
+        String user = cacheManager.userETag(1L);
+
+        cacheManager.clearAllCache();
+
+        assertNotEquals(location, cacheManager.locationETag(1L));
+        assertNotEquals(user, cacheManager.userETag(1L));
+    }
+
+    private static UserDto user(Long id, String username) {
+        return new UserDto(id, username);
+    }
+
+    private static LocationResponseDto location(Long id) {
+        LocationResponseDto location = new LocationResponseDto();
+        location.setId(id);
+        return location;
+    }
+}
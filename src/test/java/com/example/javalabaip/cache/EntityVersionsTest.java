@@ -0,0 +1,72 @@
+package com.example.javalabaip.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityVersionsTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private EntityVersions versions;
+
+    @BeforeEach
+    void setUp() {
+        versions = new EntityVersions(10, TTL, nanos::get);
+    }
+
+    @Test
+    @DisplayName("Не должен менять версии других записей, пока штампы помещаются в лимит")
+    void shouldKeepOtherVersionsWhileStampsFit() {
+        long other = versions.version(100L);
+
+        versions.changed(List.of(1L));
+
+        assertNotEquals(other, versions.version(1L));
+        assertEquals(other, versions.version(100L));
+    }
+
+    @Test
+    @DisplayName("Не должен возвращать версию назад после истечения штампа")
+    void shouldNotMoveVersionBackAfterStampExpires() {
+        long beforeChange = versions.version(1L);
+        versions.changed(List.of(1L));
+        long stamped = versions.version(1L);
+
+        nanos.addAndGet(TTL.multipliedBy(3).toNanos());
+
+        assertNotEquals(beforeChange, versions.version(1L));
+        assertTrue(versions.version(1L) >= stamped);
+    }
+
+    @Test
+    @DisplayName("Должен менять версию удалённой записи без хранения штампа")
+    void shouldChangeVersionOfDeletedEntity() {
+        long before = versions.version(1L);
+
+        versions.deleted(List.of(1L));
+
+        assertNotEquals(before, versions.version(1L));
+    }
+
+    @Test
+    @DisplayName("Должен поднимать общий уровень один раз при удалении многих записей")
+    void shouldRaiseFloorOnceForBulkDelete() {
+        versions.deleted(LongStream.rangeClosed(1, 100).boxed().toList());
+        long after = versions.version(1_000L);
+
+        versions.changed(List.of(1L));
+
+        assertEquals(after, versions.version(1_000L));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.javalabaip.cache;
+
+import com.example.javalabaip.config.GeoProperties;
+import com.example.javalabaip.dto.GeoLocationDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoLocationCacheTest {
+
+    private GeoLocationCache geoLocationCache;
+
+    @BeforeEach
+    void setUp() {
+        geoLocationCache = new GeoLocationCache(new GeoProperties());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать закэшированное значение без повторного запроса")
+    void shouldReturnCachedValueWithoutReloading() {
+        AtomicInteger calls = new AtomicInteger();
+        GeoLocationDto geoLocation = new GeoLocationDto();
+
+        geoLocationCache.get("8.8.8.8", ip -> {
+            calls.incrementAndGet();
+            return geoLocation;
+        });
+        GeoLocationDto result = geoLocationCache.get("8.8.8.8", ip -> {
+            calls.incrementAndGet();
+            return new GeoLocationDto();
+        });
+
+        assertSame(geoLocation, result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Должен объединять одновременные промахи в один запрос")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GeoLocationDto geoLocation = new GeoLocationDto();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<GeoLocationDto>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> geoLocationCache.get("1.1.1.1", ip -> {
+                calls.incrementAndGet();
+                loaderStarted.countDown();
+                await(release);
+                return geoLocation;
+            })));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < threads; i++) {
+                futures.add(executor.submit(() -> geoLocationCache.get("1.1.1.1", ip -> {
+                    calls.incrementAndGet();
+                    return new GeoLocationDto();
+                })));
+            }
+            release.countDown();
+
+            for (Future<GeoLocationDto> future : futures) {
+                assertSame(geoLocation, future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Не должен кэшировать пустой результат и ошибку")
+    void shouldNotCacheNullOrFailure() {
+        assertNull(geoLocationCache.get("2.2.2.2", ip -> null));
+        assertThrows(IllegalStateException.class, () -> geoLocationCache.get("3.3.3.3", ip -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        GeoLocationDto geoLocation = new GeoLocationDto();
+        assertSame(geoLocation, geoLocationCache.get("2.2.2.2", ip -> geoLocation));
+        assertSame(geoLocation, geoLocationCache.get("3.3.3.3", ip -> geoLocation));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
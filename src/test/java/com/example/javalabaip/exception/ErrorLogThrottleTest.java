@@ -0,0 +1,45 @@
+package com.example.javalabaip.exception;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ErrorLogThrottleTest {
+
+    @Test
+    @DisplayName("Должен пропускать первую запись и подавлять повторы в пределах окна")
+    void shouldSuppressRepeatsWithinWindow() {
+        ErrorLogThrottle throttle = new ErrorLogThrottle(Duration.ofHours(1));
+
+        assertEquals(0, throttle.tryAcquire("not-found"));
+        assertEquals(ErrorLogThrottle.SUPPRESSED, throttle.tryAcquire("not-found"));
+        assertEquals(ErrorLogThrottle.SUPPRESSED, throttle.tryAcquire("not-found"));
+        assertEquals(0, throttle.tryAcquire("bad-request"));
+    }
+
+    @Test
+    @DisplayName("Должен сообщать число подавленных записей в следующем окне")
+    void shouldReportSuppressedCountInNextWindow() throws InterruptedException {
+        ErrorLogThrottle throttle = new ErrorLogThrottle(Duration.ofMillis(20));
+        throttle.tryAcquire("not-found");
+        throttle.tryAcquire("not-found");
+        throttle.tryAcquire("not-found");
+
+        Thread.sleep(30);
+
+        assertEquals(2, throttle.tryAcquire("not-found"));
+    }
+
+    @Test
+    @DisplayName("Доменные исключения не должны заполнять стек вызовов")
+    void domainExceptionsShouldBeStackless() {
+        NotFoundException exception = new NotFoundException("Location not found with id: 1");
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertNull(exception.getCause());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.javalabaip.repository;
+
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.model.Location;
+import com.example.javalabaip.model.User;
+import com.example.javalabaip.util.IpAddressValidator;
+import com.example.javalabaip.util.IpRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs on the embedded H2 database; schema.sql only holds PostgreSQL indexes and is skipped.
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class LocationRepositoryTest {
+
+    private static final IpRange RANGE = IpRange.of("10.0.0.0", "10.0.0.255");
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("range-user");
+        user = userRepository.save(user);
+        // Saved out of address order, with three rows sharing one address, so (ipValue, id) is the only total order.
+        for (String ip : List.of("10.0.0.5", "10.0.0.6", "10.0.0.5", "10.0.0.4", "10.0.0.5", "10.1.0.1")) {
+            Location location = new Location();
+            location.setIpAddress(ip);
+            location.setCity("City");
+            location.setCountry("Country");
+            location.setUser(user);
+            ids.add(locationRepository.save(location).getId());
+        }
+        locationRepository.flush();
+    }
+
+    @Test
+    @DisplayName("Должен продолжать выборку с середины группы одинаковых адресов")
+    void shouldResumeRangeInsideEqualAddresses() {
+        long afterIp = IpAddressValidator.parseIpv4("10.0.0.5");
+        long afterId = ids.get(2);
+
+        List<LocationResponseDto> page = locationRepository.findDtoRange(
+                Math.max(RANGE.getStart(), afterIp), RANGE.getEnd(), afterIp, afterId, Limit.of(10));
+
+        assertEquals(List.of(ids.get(4), ids.get(1)), page.stream().map(LocationResponseDto::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Должен обходить диапазон страницами без пропусков и повторов")
+    void shouldPageThroughRangeInAddressOrder() {
+        List<Long> seen = new ArrayList<>();
+        long afterIp = -1;
+        long afterId = 0;
+        while (true) {
+            List<LocationResponseDto> page = locationRepository.findDtoRange(
+                    Math.max(RANGE.getStart(), afterIp), RANGE.getEnd(), afterIp, afterId, Limit.of(2));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(location -> seen.add(location.getId()));
+            LocationResponseDto last = page.get(page.size() - 1);
+            afterIp = IpAddressValidator.parseIpv4(last.getIpAddress());
+            afterId = last.getId();
+        }
+
+        assertEquals(List.of(ids.get(3), ids.get(0), ids.get(2), ids.get(4), ids.get(1)), seen);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.config.GeoProperties;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.util.CircuitBreakerOpenException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpApiClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int STUB_RATE_LIMIT = 5;
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger tooManyRequests = new AtomicInteger();
+    private final AtomicInteger serverErrors = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private long windowStart;
+    private int windowCount;
+    private HttpServer server;
+    private IpApiClient ipApiClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch", this::handleBatch);
+        server.createContext("/json/", this::handleSingle);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.start();
+
+        GeoProperties properties = new GeoProperties();
+        properties.getIpApi().setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        ipApiClient = new IpApiClient(new RestTemplate(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Должен разбивать список IP на пакеты не более 100 адресов")
+    void shouldSplitAddressesIntoBatchesOfHundred() {
+        List<String> ipAddresses = IntStream.range(0, 250)
+                .mapToObj(i -> "8.8." + (i / 256) + "." + (i % 256))
+                .collect(Collectors.toList());
+
+        Map<String, GeoLocationDto> result = ipApiClient.resolveAll(ipAddresses);
+
+        assertEquals(List.of(100, 100, 50), batchSizes);
+        assertEquals(250, result.size());
+        assertEquals("City 8.8.0.7", result.get("8.8.0.7").getCity());
+        assertEquals(1.0, result.get("8.8.0.7").getLatitude());
+    }
+
+    @Test
+    @DisplayName("Должен пропускать адреса, для которых API вернул ошибку")
+    void shouldSkipFailedEntries() {
+        Map<String, GeoLocationDto> result = ipApiClient.resolveAll(List.of("8.8.8.8", "10.0.0.1"));
+
+        assertEquals(1, result.size());
+        assertTrue(result.containsKey("8.8.8.8"));
+        assertNull(result.get("10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Должен параллельно запрашивать IP без пакетного API, соблюдая лимит из заголовков X-Rl/X-Ttl")
+    void shouldFanOutWithinServerRateLimit() {
+        GeoProperties properties = new GeoProperties();
+        properties.getIpApi().setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        properties.getIpApi().setBatchEnabled(false);
+        properties.getIpApi().setConcurrency(4);
+        IpApiClient parallelClient = new IpApiClient(new RestTemplate(), properties);
+        List<String> ipAddresses = IntStream.range(0, 12)
+                .mapToObj(i -> "8.8.4." + i)
+                .collect(Collectors.toList());
+
+        try {
+            Map<String, GeoLocationDto> result = parallelClient.resolveAll(ipAddresses);
+
+            assertEquals(ipAddresses, new ArrayList<>(result.keySet()));
+            assertEquals(0, tooManyRequests.get());
+            assertTrue(maxInFlight.get() <= 4);
+        } finally {
+            parallelClient.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен размыкать цепь после серии ошибок и отклонять вызовы без обращения к API")
+    void shouldFailFastOnceBreakerOpens() {
+        for (int i = 0; i < 10; i++) {
+            String ipAddress = "5.5.5." + i;
+            assertThrows(HttpServerErrorException.class, () -> ipApiClient.resolve(ipAddress));
+        }
+
+        assertThrows(CircuitBreakerOpenException.class, () -> ipApiClient.resolve("8.8.8.8"));
+        assertEquals(10, serverErrors.get());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать уже полученные пакеты, если цепь разомкнулась посреди запроса")
+    void shouldKeepResolvedBatchesWhenBreakerOpens() {
+        GeoProperties properties = new GeoProperties();
+        properties.getIpApi().setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        properties.getIpApi().setBatchSize(2);
+        properties.getIpApi().getBreaker().setMinimumCalls(2);
+        IpApiClient client = new IpApiClient(new RestTemplate(), properties);
+        try {
+            Map<String, GeoLocationDto> result = client.resolveAll(
+                    List.of("8.8.0.1", "8.8.0.2", "5.5.0.1", "5.5.0.2", "8.8.1.1", "8.8.1.2"));
+
+            assertEquals(List.of("8.8.0.1", "8.8.0.2"), new ArrayList<>(result.keySet()));
+            assertEquals(List.of(2, 2), batchSizes);
+            assertEquals(1, serverErrors.get());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен освобождать пробный вызов, если ожидание лимита прервано")
+    void shouldReleaseTrialCallWhenInterrupted() throws InterruptedException {
+        GeoProperties properties = new GeoProperties();
+        properties.getIpApi().setBaseUrl("http://localhost:" + server.getAddress().getPort());
+        properties.getIpApi().setRateLimit(10);
+        properties.getIpApi().getBreaker().setOpenDuration(Duration.ofMillis(50));
+        IpApiClient client = new IpApiClient(new RestTemplate(), properties);
+        try {
+            // Ten failures open the breaker and use up the limiter, so the trial call has to wait for a permit.
+            for (int i = 0; i < 10; i++) {
+                String ipAddress = "5.5.5." + i;
+                assertThrows(HttpServerErrorException.class, () -> client.resolve(ipAddress));
+            }
+            Thread.sleep(60);
+
+            // Each attempt is admitted as the trial call; a leaked trial would make the second one fail fast instead.
+            for (int i = 0; i < 2; i++) {
+                Thread.currentThread().interrupt();
+                try {
+                    assertThrows(IllegalStateException.class, () -> client.resolve("8.8.8.8"));
+                } finally {
+                    Thread.interrupted();
+                }
+            }
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    // Allows STUB_RATE_LIMIT requests per second and reports the budget the way ip-api does.
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestURI().getPath().startsWith("/json/5.")) {
+            serverErrors.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            int remaining;
+            long ttlSeconds;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (now - windowStart >= 1000) {
+                    windowStart = now;
+                    windowCount = 0;
+                }
+                windowCount++;
+                remaining = STUB_RATE_LIMIT - windowCount;
+                ttlSeconds = (windowStart + 1000 - now + 999) / 1000;
+            }
+            exchange.getResponseHeaders().add("X-Rl", String.valueOf(Math.max(0, remaining)));
+            exchange.getResponseHeaders().add("X-Ttl", String.valueOf(ttlSeconds));
+            if (remaining < 0) {
+                tooManyRequests.incrementAndGet();
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+
+            String ip = exchange.getRequestURI().getPath().substring("/json/".length());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", ip);
+            entry.put("status", "success");
+            entry.put("city", "City " + ip);
+            entry.put("country", "Country");
+            Thread.sleep(20);
+            byte[] body = objectMapper.writeValueAsString(entry).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String[] ipAddresses = objectMapper.readValue(exchange.getRequestBody(), String[].class);
+        batchSizes.add(ipAddresses.length);
+        if (ipAddresses[0].startsWith("5.")) {
+            serverErrors.incrementAndGet();
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+
+        List<Map<String, Object>> response = new ArrayList<>();
+        Arrays.stream(ipAddresses).forEach(ip -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("query", ip);
+            if (ip.startsWith("10.")) {
+                entry.put("status", "fail");
+                entry.put("message", "private range");
+            } else {
+                entry.put("status", "success");
+                entry.put("city", "City " + ip);
+                entry.put("country", "Country");
+                entry.put("lat", 1.0);
+                entry.put("lon", 2.0);
+            }
+            response.add(entry);
+        });
+
+        byte[] body = objectMapper.writeValueAsString(response).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.example.javalabaip.service;
 
 import com.example.javalabaip.cache.CacheManager;
+import com.example.javalabaip.cache.GeoLocationCache;
+import com.example.javalabaip.dto.GeoLocationDto;
+import com.example.javalabaip.dto.IpResultDto;
 import com.example.javalabaip.dto.LocationResponseDto;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.BadRequestException;
+import com.example.javalabaip.exception.NotFoundException;
 import com.example.javalabaip.model.Location;
 import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.BatchInserter;
 import com.example.javalabaip.repository.LocationRepository;
+import com.example.javalabaip.repository.LocationRepository.NearbyLocation;
 import com.example.javalabaip.repository.UserRepository;
+import com.example.javalabaip.util.GeoBox;
 import com.example.javalabaip.util.IpAddressValidator;
-import jakarta.persistence.EntityNotFoundException;
+import com.example.javalabaip.util.IpRange;
+import com.example.javalabaip.util.RequestCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,18 +25,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,70 +54,67 @@ class IpLocationServiceTest {
     private IpLocationService ipLocationService;
 
     @Mock
-    private RestTemplate restTemplate;
+    private GeoResolver geoResolver;
 
     @Mock
-    private LocationRepository locationRepository;
+    private GeoLocationCache geoLocationCache;
 
     @Mock
-    private UserRepository userRepository;
+    private LocationRepository locationRepository;
 
     @Mock
-    private CacheManager cacheManager;
+    private BatchInserter batchInserter;
 
     @Mock
-    private IpAddressValidator ipAddressValidator;
+    private UserRepository userRepository;
 
     @Mock
-    private Location location;
+    private CacheManager cacheManager;
 
     @Mock
-    private User user;
+    private LocationStatisticsService locationStatisticsService;
 
     @Mock
-    private UserDto userDto;
+    private RequestCounter requestCounter;
 
-    @Mock
+    private final User user = new User();
+    private final UserDto userDto = new UserDto(1L, "testuser");
+    private Location location;
     private LocationResponseDto locationDto;
 
+    private final GeoLocationDto geoLocation = new GeoLocationDto();
+
     @BeforeEach
     void setUp() {
-        when(user.getId()).thenReturn(1L);
-        when(user.getUsername()).thenReturn("testuser");
-        when(userDto.getUsername()).thenReturn("testuser");
-        when(location.getId()).thenReturn(1L);
-        when(location.getIpAddress()).thenReturn("192.168.1.1");
-        when(location.getCity()).thenReturn("City");
-        when(location.getCountry()).thenReturn("Country");
-        when(location.getUser()).thenReturn(user);
-        when(locationDto.getId()).thenReturn(1L);
-        when(locationDto.getIpAddress()).thenReturn("192.168.1.1");
-        when(locationDto.getCity()).thenReturn("City");
-        when(locationDto.getCountry()).thenReturn("Country");
+        user.setId(1L);
+        user.setUsername("testuser");
+        location = location(1L, "192.168.1.1", "City", "Country");
+        locationDto = locationDto(1L, "192.168.1.1", "City", "Country");
+        geoLocation.setCity("City");
+        geoLocation.setCountry("Country");
     }
 
     @Test
     @DisplayName("Должен возвращать все локации из кэша, если кэш содержит данные")
     void shouldReturnAllLocationsFromCache() {
-        String cacheKey = "findAll";
+        String cacheKey = "page:0:100";
         List<LocationResponseDto> cachedLocations = List.of(locationDto);
-        when(cacheManager.containsLocationListKey(cacheKey)).thenReturn(true);
         when(cacheManager.getLocationList(cacheKey)).thenReturn(cachedLocations);
 
-        List<LocationResponseDto> result = ipLocationService.findAll();
+        List<LocationResponseDto> result = ipLocationService.findAll(0L, 100);
 
         assertEquals(cachedLocations, result);
-        verify(locationRepository, never()).findAll();
+        verify(locationRepository, never()).findDtoPage(anyLong(), any());
     }
 
     @Test
     @DisplayName("Должен возвращать все локации из репозитория, если кэш пуст")
     void shouldReturnAllLocationsFromRepository() {
-        String cacheKey = "findAll";
-        when(cacheManager.containsLocationListKey(cacheKey)).thenReturn(false);
-        when(locationRepository.findAll()).thenReturn(List.of(location));
+        String cacheKey = "page:0:100";
+        when(cacheManager.getLocationList(cacheKey)).thenReturn(null);
+        when(locationRepository.findDtoPage(eq(0L), any(Limit.class))).thenReturn(List.of(locationDto));
 
-        List<LocationResponseDto> result = ipLocationService.findAll();
+        List<LocationResponseDto> result = ipLocationService.findAll(0L, 100);
 
         assertEquals(1, result.size());
         assertEquals("192.168.1.1", result.get(0).getIpAddress());
@@ -110,11 +124,11 @@ class IpLocationServiceTest {
     @Test
     @DisplayName("Должен возвращать пустой список, если репозиторий пуст")
     void shouldReturnEmptyListWhenRepositoryEmpty() {
-        String cacheKey = "findAll";
-        when(cacheManager.containsLocationListKey(cacheKey)).thenReturn(false);
-        when(locationRepository.findAll()).thenReturn(Collections.emptyList());
+        String cacheKey = "page:0:100";
+        when(cacheManager.getLocationList(cacheKey)).thenReturn(null);
+        when(locationRepository.findDtoPage(eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
 
-        List<LocationResponseDto> result = ipLocationService.findAll();
+        List<LocationResponseDto> result = ipLocationService.findAll(0L, 100);
 
         assertTrue(result.isEmpty());
         verify(cacheManager).putLocationList(cacheKey, result);
@@ -123,20 +137,18 @@ class IpLocationServiceTest {
     @Test
     @DisplayName("Должен возвращать локацию по ID из кэша, если кэш содержит данные")
     void shouldReturnLocationByIdFromCache() {
-        when(cacheManager.containsLocationKey(1L)).thenReturn(true);
         when(cacheManager.getLocation(1L)).thenReturn(locationDto);
 
         LocationResponseDto result = ipLocationService.findById(1L);
 
         assertEquals(locationDto, result);
-        verify(locationRepository, never()).findById(any());
+        verify(locationRepository, never()).findDtoById(any());
     }
 
     @Test
     @DisplayName("Должен возвращать локацию по ID из репозитория, если кэш пуст")
     void shouldReturnLocationByIdFromRepository() {
-        when(cacheManager.containsLocationKey(1L)).thenReturn(false);
-        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        when(locationRepository.findDtoById(1L)).thenReturn(Optional.of(locationDto));
 
         LocationResponseDto result = ipLocationService.findById(1L);
 
@@ -147,10 +159,9 @@ class IpLocationServiceTest {
     @Test
     @DisplayName("Должен бросать исключение, если локация по ID не найдена")
     void shouldThrowExceptionWhenLocationNotFoundById() {
-        when(cacheManager.containsLocationKey(1L)).thenReturn(false);
-        when(locationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(locationRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> ipLocationService.findById(1L));
+        assertThrows(NotFoundException.class, () -> ipLocationService.findById(1L));
     }
 
     @Test
@@ -158,21 +169,20 @@ class IpLocationServiceTest {
     void shouldReturnLocationsByUsernameFromCache() {
         String cacheKey = "findByUsername:testuser";
         List<LocationResponseDto> cachedLocations = List.of(locationDto);
-        when(cacheManager.containsLocationListKey(cacheKey)).thenReturn(true);
         when(cacheManager.getLocationList(cacheKey)).thenReturn(cachedLocations);
 
         List<LocationResponseDto> result = ipLocationService.findByUsername("testuser");
 
         assertEquals(cachedLocations, result);
-        verify(locationRepository, never()).findByUsername(any());
+        verify(locationRepository, never()).findDtosByUsername(any());
     }
 
     @Test
     @DisplayName("Должен возвращать локации по имени пользователя из репозитория, если кэш пуст")
     void shouldReturnLocationsByUsernameFromRepository() {
         String cacheKey = "findByUsername:testuser";
-        when(cacheManager.containsLocationListKey(cacheKey)).thenReturn(false);
-        when(locationRepository.findByUsername("testuser")).thenReturn(List.of(location));
+        when(cacheManager.getLocationList(cacheKey)).thenReturn(null);
+        when(locationRepository.findDtosByUsername("testuser")).thenReturn(List.of(locationDto));
 
         List<LocationResponseDto> result = ipLocationService.findByUsername("testuser");
 
@@ -181,73 +191,120 @@ class IpLocationServiceTest {
         verify(cacheManager).putLocationList(cacheKey, result);
     }
 
+    @Test
+    @DisplayName("Должен возвращать страницу локаций пользователя по курсору")
+    void shouldReturnUserLocationPage() {
+        when(locationRepository.findDtoPageByUserId(eq(1L), eq(5L), any(Limit.class))).thenReturn(List.of(locationDto));
+
+        List<LocationResponseDto> result = ipLocationService.findByUserId(1L, 5L, 100);
+
+        assertEquals(List.of(locationDto), result);
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    @DisplayName("Должен бросать исключение при запросе локаций несуществующего пользователя")
+    void shouldThrowExceptionWhenListingLocationsOfMissingUser() {
+        when(locationRepository.findDtoPageByUserId(eq(1L), eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> ipLocationService.findByUserId(1L, 0L, 100));
+    }
+
+    @Test
+    @DisplayName("Должен начинать выборку по диапазону с курсора, если он правее начала диапазона")
+    void shouldQueryRangeFromCursor() {
+        IpRange range = IpRange.ofCidr("10.0.0.0/8");
+        long cursorIp = IpAddressValidator.parseIpv4("10.0.0.5");
+        when(locationRepository.findDtoRange(eq(cursorIp), eq(range.getEnd()), eq(cursorIp), eq(7L), any(Limit.class)))
+                .thenReturn(List.of(locationDto));
+
+        List<LocationResponseDto> result = ipLocationService.findByRange(range, cursorIp, 7L, 100);
+
+        assertEquals(List.of(locationDto), result);
+    }
+
+    @Test
+    @DisplayName("Должен передавать радиус и лимит в запрос и сохранять порядок по расстоянию")
+    void shouldFindNearSortedByDistance() {
+        when(locationRepository.findNearestInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), eq(53.9), eq(27.5667),
+                eq(100.0), eq(GeoBox.EARTH_RADIUS_KM), eq(10)))
+                .thenReturn(List.of(nearby(2L, 4.5), nearby(3L, 88.6)));
+
+        List<LocationResponseDto> result = ipLocationService.findNear(53.9, 27.5667, 100, 10);
+
+        assertEquals(List.of(2L, 3L), result.stream().map(LocationResponseDto::getId).toList());
+        assertEquals("10.0.0.2", result.get(0).getIpAddress());
+    }
+
+    @Test
+    @DisplayName("Должен объединять обе половины области, пересекающей антимеридиан, с учётом лимита")
+    void shouldMergeBoxHalvesAcrossAntimeridian() {
+        when(locationRepository.findNearestInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), eq(2)))
+                .thenReturn(List.of(nearby(1L, 50), nearby(3L, 90)), List.of(nearby(2L, 60)));
+
+        List<LocationResponseDto> result = ipLocationService.findNear(0, 179.9, 100, 2);
+
+        assertEquals(List.of(1L, 2L), result.stream().map(LocationResponseDto::getId).toList());
+        verify(locationRepository, times(2)).findNearestInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Должен бросать исключение при некорректных координатах поиска")
+    void shouldRejectInvalidNearQuery() {
+        assertThrows(BadRequestException.class, () -> ipLocationService.findNear(95, 0, 10, 10));
+        verifyNoInteractions(locationRepository);
+    }
+
     @Test
     @DisplayName("Должен успешно создавать локацию")
     void shouldCreateLocationSuccessfully() {
-        when(ipAddressValidator.isValidIpAddress("192.168.1.1")).thenReturn(true);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(restTemplate.getForObject(anyString(), eq(Location.class))).thenReturn(location);
+        when(geoLocationCache.get(anyString(), any())).thenReturn(geoLocation);
         when(locationRepository.save(any(Location.class))).thenReturn(location);
 
         LocationResponseDto result = ipLocationService.create("192.168.1.1", userDto);
 
         assertEquals("192.168.1.1", result.getIpAddress());
-        verify(cacheManager).invalidateLocationCache(1L, "testuser");
+        verify(cacheManager).locationsCreated(List.of(result), "testuser");
     }
 
     @Test
     @DisplayName("Должен бросать исключение при создании локации с неверным IP")
     void shouldThrowExceptionWhenCreatingWithInvalidIp() {
-        when(ipAddressValidator.isValidIpAddress("invalid")).thenReturn(false);
-
-        assertThrows(ResponseStatusException.class, () -> ipLocationService.create("invalid", userDto));
+        assertThrows(BadRequestException.class, () -> ipLocationService.create("invalid", userDto));
         verify(userRepository, never()).findByUsername(any());
     }
 
     @Test
     @DisplayName("Должен бросать исключение при создании локации с несуществующим пользователем")
     void shouldThrowExceptionWhenCreatingWithNonExistentUser() {
-        when(ipAddressValidator.isValidIpAddress("192.168.1.1")).thenReturn(true);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
 
-        assertThrows(ResponseStatusException.class, () -> ipLocationService.create("192.168.1.1", userDto));
-        verify(restTemplate, never()).getForObject(any(), any());
+        assertThrows(NotFoundException.class, () -> ipLocationService.create("192.168.1.1", userDto));
+        verify(geoLocationCache, never()).get(any(), any());
     }
 
     @Test
     @DisplayName("Должен бросать исключение, если API возвращает неполные данные")
     void shouldThrowExceptionWhenApiReturnsIncompleteData() {
-        when(ipAddressValidator.isValidIpAddress("192.168.1.1")).thenReturn(true);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        Location incompleteLocation = mock(Location.class);
-        when(incompleteLocation.getCity()).thenReturn(null);
-        when(incompleteLocation.getCountry()).thenReturn("Country");
-        when(restTemplate.getForObject(anyString(), eq(Location.class))).thenReturn(incompleteLocation);
+        when(geoLocationCache.get(anyString(), any())).thenReturn(null);
 
-        assertThrows(ResponseStatusException.class, () -> ipLocationService.create("192.168.1.1", userDto));
+        assertThrows(BadRequestException.class, () -> ipLocationService.create("192.168.1.1", userDto));
         verify(locationRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("Должен успешно создавать несколько локаций")
     void shouldCreateMultipleLocationsSuccessfully() {
-        Location location2 = mock(Location.class);
-        LocationResponseDto locationDto2 = mock(LocationResponseDto.class);
-        when(location2.getId()).thenReturn(2L);
-        when(location2.getIpAddress()).thenReturn("192.168.1.2");
-        when(location2.getCity()).thenReturn("City2");
-        when(location2.getCountry()).thenReturn("Country2");
-        when(location2.getUser()).thenReturn(user);
-        when(locationDto2.getId()).thenReturn(2L);
-        when(locationDto2.getIpAddress()).thenReturn("192.168.1.2");
-        when(locationDto2.getCity()).thenReturn("City2");
-        when(locationDto2.getCountry()).thenReturn("Country2");
-
-        when(ipAddressValidator.isValidIpAddress("192.168.1.1")).thenReturn(true);
-        when(ipAddressValidator.isValidIpAddress("192.168.1.2")).thenReturn(true);
+        Location location2 = location(2L, "192.168.1.2", "City2", "Country2");
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(restTemplate.getForObject(anyString(), eq(Location.class))).thenReturn(location, location2);
-        when(locationRepository.save(any(Location.class))).thenReturn(location, location2);
+        when(geoLocationCache.getAll(any(), any()))
+                .thenReturn(Map.of("192.168.1.1", geoLocation, "192.168.1.2", geoLocation));
+        mockBatchInsert(List.of(location, location2));
 
         List<String> ipAddresses = List.of("192.168.1.1", "192.168.1.2");
         List<LocationResponseDto> result = ipLocationService.createBulk(ipAddresses, userDto);
@@ -255,24 +312,39 @@ class IpLocationServiceTest {
         assertEquals(2, result.size());
         assertEquals("192.168.1.1", result.get(0).getIpAddress());
         assertEquals("192.168.1.2", result.get(1).getIpAddress());
-        verify(cacheManager, times(2)).invalidateLocationCache(anyLong(), eq("testuser"));
+        verify(cacheManager).locationsCreated(result, "testuser");
     }
 
     @Test
     @DisplayName("Должен пропускать невалидные IP при массовом создании")
     void shouldSkipInvalidIpsWhenCreatingBulk() {
-        when(ipAddressValidator.isValidIpAddress("192.168.1.1")).thenReturn(true);
-        when(ipAddressValidator.isValidIpAddress("invalid")).thenReturn(false);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(restTemplate.getForObject(anyString(), eq(Location.class))).thenReturn(location);
-        when(locationRepository.save(any(Location.class))).thenReturn(location);
+        when(geoLocationCache.getAll(any(), any())).thenReturn(Map.of("192.168.1.1", geoLocation));
+        mockBatchInsert(List.of(location));
 
         List<String> ipAddresses = List.of("192.168.1.1", "invalid");
         List<LocationResponseDto> result = ipLocationService.createBulk(ipAddresses, userDto);
 
         assertEquals(1, result.size());
         assertEquals("192.168.1.1", result.get(0).getIpAddress());
-        verify(cacheManager).invalidateLocationCache(1L, "testuser");
+        verify(batchInserter).insertAll(argThat((List<Location> locations) -> locations.size() == 1), any());
+        verify(cacheManager).locationsCreated(result, "testuser");
+    }
+
+    @Test
+    @DisplayName("Должен возвращать результат по каждому IP в исходном порядке")
+    void shouldReportPerIpResults() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(geoLocationCache.getAll(any(), any())).thenReturn(Map.of("192.168.1.1", geoLocation));
+        mockBatchInsert(List.of(location));
+
+        List<IpResultDto> results = ipLocationService.createBulkWithResults(
+                List.of("invalid", "192.168.1.2", "192.168.1.1"), userDto);
+
+        assertEquals(IpResultDto.Status.INVALID, results.get(0).getStatus());
+        assertEquals(IpResultDto.Status.FAILED, results.get(1).getStatus());
+        assertEquals(IpResultDto.Status.CREATED, results.get(2).getStatus());
+        assertEquals("192.168.1.1", results.get(2).getLocation().getIpAddress());
     }
 
     @Test
@@ -283,60 +355,125 @@ class IpLocationServiceTest {
         List<LocationResponseDto> result = ipLocationService.createBulk(Collections.emptyList(), userDto);
 
         assertTrue(result.isEmpty());
-        verify(restTemplate, never()).getForObject(any(), any());
-        verify(locationRepository, never()).save(any());
-        verify(cacheManager, never()).invalidateLocationCache(anyLong(), anyString());
+        verify(geoLocationCache, never()).getAll(any(), any());
+        verify(batchInserter, never()).insertAll(anyList(), any());
+        verify(cacheManager, never()).locationsCreated(anyList(), anyString());
     }
 
     @Test
     @DisplayName("Должен успешно обновлять локацию")
     void shouldUpdateLocationSuccessfully() {
-        Location updatedLocation = mock(Location.class);
-        when(updatedLocation.getId()).thenReturn(1L);
-        when(updatedLocation.getIpAddress()).thenReturn("192.168.1.2");
-        when(updatedLocation.getCity()).thenReturn("NewCity");
-        when(updatedLocation.getCountry()).thenReturn("NewCountry");
-        when(updatedLocation.getUser()).thenReturn(user);
-
-        LocationResponseDto updatedDto = mock(LocationResponseDto.class);
-        when(updatedDto.getId()).thenReturn(1L);
-        when(updatedDto.getIpAddress()).thenReturn("192.168.1.2");
-        when(updatedDto.getCity()).thenReturn("NewCity");
-        when(updatedDto.getCountry()).thenReturn("NewCountry");
-
-        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        Location updatedLocation = location(1L, "192.168.1.2", "NewCity", "NewCountry");
+        LocationResponseDto updatedDto = locationDto(1L, "192.168.1.2", "NewCity", "NewCountry");
+
+        when(locationRepository.findByIdWithUser(1L)).thenReturn(Optional.of(location));
         when(locationRepository.save(any(Location.class))).thenReturn(updatedLocation);
 
         LocationResponseDto result = ipLocationService.update(1L, updatedDto);
 
         assertEquals("192.168.1.2", result.getIpAddress());
-        verify(cacheManager).invalidateLocationCache(1L, "testuser");
+        verify(cacheManager).locationUpdated(result, "testuser");
     }
 
     @Test
     @DisplayName("Должен бросать исключение при обновлении несуществующей локации")
     void shouldThrowExceptionWhenUpdatingNonExistentLocation() {
-        when(locationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(locationRepository.findByIdWithUser(1L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> ipLocationService.update(1L, locationDto));
+        assertThrows(NotFoundException.class, () -> ipLocationService.update(1L, locationDto));
     }
 
     @Test
     @DisplayName("Должен успешно удалять локацию")
     void shouldDeleteLocationSuccessfully() {
-        when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
+        when(locationRepository.findByIdWithUser(1L)).thenReturn(Optional.of(location));
 
         ipLocationService.delete(1L);
 
         verify(locationRepository).deleteById(1L);
-        verify(cacheManager).invalidateLocationCache(1L, "testuser");
+        verify(cacheManager).locationDeleted(1L, "testuser");
     }
 
     @Test
     @DisplayName("Должен бросать исключение при удалении несуществующей локации")
     void shouldThrowExceptionWhenDeletingNonExistentLocation() {
-        when(locationRepository.findById(1L)).thenReturn(Optional.empty());
+        when(locationRepository.findByIdWithUser(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> ipLocationService.delete(1L));
+    }
+
+    private void mockBatchInsert(List<Location> savedLocations) {
+        when(batchInserter.insertAll(anyList(), any())).thenAnswer(invocation -> {
+            Function<Location, LocationResponseDto> mapper = invocation.getArgument(1);
+            return savedLocations.stream().map(mapper).collect(Collectors.toList());
+        });
+    }
+
+    private Location location(Long id, String ipAddress, String city, String country) {
+        Location result = new Location();
+        result.setId(id);
+        result.setIpAddress(ipAddress);
+        result.setCity(city);
+        result.setCountry(country);
+        result.setUser(user);
+        return result;
+    }
+
+    private static LocationResponseDto locationDto(Long id, String ipAddress, String city, String country) {
+        LocationResponseDto result = new LocationResponseDto();
+        result.setId(id);
+        result.setIpAddress(ipAddress);
+        result.setCity(city);
+        result.setCountry(country);
+        return result;
+    }
 
-        assertThrows(EntityNotFoundException.class, () -> ipLocationService.delete(1L));
+    private static NearbyLocation nearby(Long id, double distanceKm) {
+        return new NearbyLocation() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getIpAddress() {
+                return "10.0.0." + id;
+            }
+
+            @Override
+            public String getCity() {
+                return null;
+            }
+
+            @Override
+            public String getCountry() {
+                return null;
+            }
+
+            @Override
+            public String getContinent() {
+                return null;
+            }
+
+            @Override
+            public Double getLatitude() {
+                return null;
+            }
+
+            @Override
+            public Double getLongitude() {
+                return null;
+            }
+
+            @Override
+            public String getTimezone() {
+                return null;
+            }
+
+            @Override
+            public double getDistanceKm() {
+                return distanceKm;
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.repository.LocationRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationExportServiceTest {
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LocationExportService locationExportService;
+
+    @BeforeEach
+    void setUp() {
+        locationExportService = new LocationExportService(locationRepository, objectMapper);
+        when(locationRepository.streamAllDtos()).thenReturn(Stream.of(
+                location(1L, "8.8.8.8", "Mountain View"),
+                location(2L, "1.1.1.1", "Brisbane, QLD")));
+    }
+
+    @Test
+    @DisplayName("Должен выгружать локации построчно в формате NDJSON")
+    void shouldExportNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        locationExportService.export(out, LocationExportService.Format.NDJSON);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("8.8.8.8", first.get("ipAddress").asText());
+        assertTrue(first.get("latitude").isNull());
+        assertEquals("Brisbane, QLD", objectMapper.readTree(lines[1]).get("city").asText());
+    }
+
+    @Test
+    @DisplayName("Должен выгружать локации в формате CSV с экранированием")
+    void shouldExportCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        locationExportService.export(out, LocationExportService.Format.CSV);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,ipAddress,city,country,continent,latitude,longitude,timezone", lines[0]);
+        assertEquals("1,8.8.8.8,Mountain View,Country,,,,", lines[1]);
+        assertEquals("2,1.1.1.1,\"Brisbane, QLD\",Country,,,,", lines[2]);
+    }
+
+    private static LocationResponseDto location(Long id, String ipAddress, String city) {
+        return new LocationResponseDto(id, ipAddress, city, "Country", null, null, null, null);
+    }
+}
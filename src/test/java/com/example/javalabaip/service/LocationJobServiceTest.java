@@ -0,0 +1,153 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.config.JobProperties;
+import com.example.javalabaip.dto.BulkJobDto;
+import com.example.javalabaip.dto.IpResultDto;
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.NotFoundException;
+import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationJobServiceTest {
+
+    @Mock
+    private IpLocationService ipLocationService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final UserDto userDto = new UserDto(null, "testuser");
+
+    private LocationJobService locationJobService;
+
+    @AfterEach
+    void tearDown() {
+        locationJobService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Должен обрабатывать задание частями и сохранять результат по каждому IP")
+    void shouldProcessJobInChunks() throws InterruptedException {
+        locationJobService = new LocationJobService(ipLocationService, userRepository, properties(1, 10));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(new User()));
+        LocationResponseDto location = new LocationResponseDto(1L, "8.8.8.8", "City", "Country", null, null, null, null);
+        when(ipLocationService.createBulkWithResults(List.of("8.8.8.8", "bad"), userDto)).thenReturn(List.of(
+                IpResultDto.created("8.8.8.8", location), IpResultDto.invalid("bad", "Неверный формат IP-адреса")));
+        when(ipLocationService.createBulkWithResults(List.of("1.1.1.1"), userDto)).thenReturn(List.of(
+                IpResultDto.failed("1.1.1.1", "Не удалось определить местоположение")));
+
+        BulkJobDto submitted = locationJobService.submit(List.of("8.8.8.8", "bad", "1.1.1.1"), userDto);
+        BulkJobDto job = awaitCompletion(submitted.getId());
+
+        assertEquals(BulkJobDto.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getTotal());
+        assertEquals(3, job.getProcessed());
+        assertEquals(1, job.getSucceeded());
+        assertEquals(2, job.getFailed());
+        assertEquals(IpResultDto.Status.FAILED, job.getResults().get(2).getStatus());
+    }
+
+    @Test
+    @DisplayName("Должен отклонять задание с кодом 503, если в очереди слишком много IP-адресов")
+    void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        locationJobService = new LocationJobService(ipLocationService, userRepository, properties(1, 3));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(new User()));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(ipLocationService.createBulkWithResults(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return List.of();
+        });
+
+        locationJobService.submit(List.of("8.8.8.8"), userDto);
+        started.await(5, TimeUnit.SECONDS);
+        locationJobService.submit(List.of("8.8.8.8", "1.1.1.1"), userDto);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> locationJobService.submit(List.of("8.8.8.8"), userDto));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Должен отклонять задание больше всей очереди с кодом 413")
+    void shouldRejectJobLargerThanQueue() {
+        locationJobService = new LocationJobService(ipLocationService, userRepository, properties(1, 1));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(new User()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> locationJobService.submit(List.of("8.8.8.8", "1.1.1.1"), userDto));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Не должен терять выполняющееся задание после срока хранения")
+    void shouldKeepRunningJobPastRetention() throws InterruptedException {
+        JobProperties properties = properties(1, 10);
+        properties.setRetention(Duration.ofMillis(1));
+        locationJobService = new LocationJobService(ipLocationService, userRepository, properties);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(new User()));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(ipLocationService.createBulkWithResults(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return List.of();
+        });
+
+        BulkJobDto submitted = locationJobService.submit(List.of("8.8.8.8"), userDto);
+        started.await(5, TimeUnit.SECONDS);
+        Thread.sleep(20);
+
+        assertEquals(BulkJobDto.Status.RUNNING, locationJobService.findById(submitted.getId()).getStatus());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Должен бросать исключение для неизвестного задания")
+    void shouldThrowForUnknownJob() {
+        locationJobService = new LocationJobService(ipLocationService, userRepository, properties(1, 1));
+
+        assertThrows(NotFoundException.class, () -> locationJobService.findById("missing"));
+    }
+
+    private BulkJobDto awaitCompletion(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        BulkJobDto job = locationJobService.findById(id);
+        while (job.getStatus() != BulkJobDto.Status.COMPLETED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = locationJobService.findById(id);
+        }
+        return job;
+    }
+
+    private static JobProperties properties(int workers, long maxQueuedAddresses) {
+        JobProperties properties = new JobProperties();
+        properties.setWorkers(workers);
+        properties.setMaxQueuedAddresses(maxQueuedAddresses);
+        properties.setChunkSize(2);
+        return properties;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.javalabaip.service;
+
+import com.example.javalabaip.dto.LocationCountDto;
+import com.example.javalabaip.dto.LocationResponseDto;
+import com.example.javalabaip.repository.LocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationStatisticsServiceTest {
+
+    @InjectMocks
+    private LocationStatisticsService locationStatisticsService;
+
+    @Mock
+    private LocationRepository locationRepository;
+
+    @BeforeEach
+    void setUp() {
+        when(locationRepository.countByPlace()).thenReturn(List.of(
+                new LocationCountDto("Belarus", "Europe", "Minsk", 3),
+                new LocationCountDto("Belarus", "Europe", "Brest", 1),
+                new LocationCountDto("Germany", "Europe", "Berlin", 2)));
+        locationStatisticsService.afterSingletonsInstantiated();
+    }
+
+    @Test
+    @DisplayName("Должен восстанавливать счётчики из сгруппированного запроса")
+    void shouldRebuildCountersFromDatabase() {
+        assertEquals(Map.of("Belarus", 4L, "Germany", 2L),
+                locationStatisticsService.getCounts(LocationStatisticsService.Dimension.COUNTRY, 0));
+        assertEquals(Map.of("Europe", 6L),
+                locationStatisticsService.getCounts(LocationStatisticsService.Dimension.CONTINENT, 0));
+    }
+
+    @Test
+    @DisplayName("Должен учитывать создание и удаление локаций")
+    void shouldApplyIncrementalChanges() {
+        LocationResponseDto paris = new LocationResponseDto(1L, "1.1.1.1", "Paris", "France", "Europe", null, null, null);
+        locationStatisticsService.addedAll(List.of(paris, paris, paris, paris, paris));
+        locationStatisticsService.removed("Germany", "Europe", "Berlin");
+        locationStatisticsService.removed("Germany", "Europe", "Berlin");
+
+        Map<String, Long> countries = locationStatisticsService.getCounts(LocationStatisticsService.Dimension.COUNTRY, 0);
+
+        assertEquals(List.of("France", "Belarus"), List.copyOf(countries.keySet()));
+        assertEquals(5L, countries.get("France"));
+    }
+
+    @Test
+    @DisplayName("Должен возвращать первые N городов по убыванию количества")
+    void shouldReturnTopCities() {
+        locationStatisticsService.added("Belarus", "Europe", null);
+
+        Map<String, Long> cities = locationStatisticsService.getCounts(LocationStatisticsService.Dimension.CITY, 2);
+
+        assertEquals(List.of("Minsk, Belarus", "Berlin, Germany"), List.copyOf(cities.keySet()));
+    }
+
+    @Test
+    @DisplayName("Должен применять изменения только после фиксации транзакции")
+    void shouldApplyChangesOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locationStatisticsService.removed("Germany", "Europe", "Berlin");
+            assertEquals(2L, countryCount("Germany"));
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1L, countryCount("Germany"));
+    }
+
+    @Test
+    @DisplayName("Должен отбрасывать изменения при откате транзакции")
+    void shouldDiscardChangesOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locationStatisticsService.added("Germany", "Europe", "Berlin");
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(2L, countryCount("Germany"));
+    }
+
+    private long countryCount(String country) {
+        return locationStatisticsService.getCounts(LocationStatisticsService.Dimension.COUNTRY, 0).get(country);
+    }
+}
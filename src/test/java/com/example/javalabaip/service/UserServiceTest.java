@@ -3,23 +3,30 @@ package com.example.javalabaip.service;
 
 import com.example.javalabaip.cache.CacheManager;
 import com.example.javalabaip.dto.UserDto;
+import com.example.javalabaip.exception.NotFoundException;
+import com.example.javalabaip.model.Location;
 import com.example.javalabaip.model.User;
+import com.example.javalabaip.repository.BatchInserter;
 import com.example.javalabaip.repository.UserRepository;
-import jakarta.persistence.EntityNotFoundException;
-import org.junit.jupiter.api.BeforeEach;
+import com.example.javalabaip.util.RequestCounter;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,45 +38,42 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private BatchInserter batchInserter;
+
     @Mock
     private CacheManager cacheManager;
 
     @Mock
-    private User user;
+    private LocationStatisticsService locationStatisticsService;
 
     @Mock
-    private UserDto userDto;
+    private RequestCounter requestCounter;
 
-    @BeforeEach
-    void setUp() {
-        when(user.getId()).thenReturn(1L);
-        when(user.getUsername()).thenReturn("testuser");
-        when(userDto.getId()).thenReturn(1L);
-        when(userDto.getUsername()).thenReturn("testuser");
-    }
+    private final User user = user(1L, "testuser");
+    private final UserDto userDto = new UserDto(1L, "testuser");
 
     @Test
     @DisplayName("Должен возвращать всех пользователей из кэша, если кэш содержит данные")
     void shouldReturnAllUsersFromCache() {
-        String cacheKey = "findAll";
+        String cacheKey = "page:0:100";
         List<UserDto> cachedUsers = List.of(userDto);
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(true);
         when(cacheManager.getUserList(cacheKey)).thenReturn(cachedUsers);
 
-        List<UserDto> result = userService.findAll();
+        List<UserDto> result = userService.findAll(0L, 100);
 
         assertEquals(cachedUsers, result);
-        verify(userRepository, never()).findAll();
+        verify(userRepository, never()).findDtoPage(anyLong(), any());
     }
 
     @Test
     @DisplayName("Должен возвращать всех пользователей из репозитория, если кэш пуст")
     void shouldReturnAllUsersFromRepository() {
-        String cacheKey = "findAll";
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(false);
-        when(userRepository.findAll()).thenReturn(List.of(user));
+        String cacheKey = "page:0:100";
+        when(cacheManager.getUserList(cacheKey)).thenReturn(null);
+        when(userRepository.findDtoPage(eq(0L), any(Limit.class))).thenReturn(List.of(new UserDto(1L, "testuser")));
 
-        List<UserDto> result = userService.findAll();
+        List<UserDto> result = userService.findAll(0L, 100);
 
         assertEquals(1, result.size());
         assertEquals("testuser", result.get(0).getUsername());
@@ -79,11 +83,11 @@ class UserServiceTest {
     @Test
     @DisplayName("Должен возвращать пустой список, если репозиторий пуст")
     void shouldReturnEmptyListWhenRepositoryEmpty() {
-        String cacheKey = "findAll";
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(false);
-        when(userRepository.findAll()).thenReturn(Collections.emptyList());
+        String cacheKey = "page:0:100";
+        when(cacheManager.getUserList(cacheKey)).thenReturn(null);
+        when(userRepository.findDtoPage(eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
 
-        List<UserDto> result = userService.findAll();
+        List<UserDto> result = userService.findAll(0L, 100);
 
         assertTrue(result.isEmpty());
         verify(cacheManager).putUserList(cacheKey, result);
@@ -92,20 +96,18 @@ class UserServiceTest {
     @Test
     @DisplayName("Должен возвращать пользователя по ID из кэша, если кэш содержит данные")
     void shouldReturnUserByIdFromCache() {
-        when(cacheManager.containsUserKey(1L)).thenReturn(true);
         when(cacheManager.getUser(1L)).thenReturn(userDto);
 
         UserDto result = userService.findById(1L);
 
         assertEquals(userDto, result);
-        verify(userRepository, never()).findByIdWithLocations(any());
+        verify(userRepository, never()).findDtoById(any());
     }
 
     @Test
     @DisplayName("Должен возвращать пользователя по ID из репозитория, если кэш пуст")
     void shouldReturnUserByIdFromRepository() {
-        when(cacheManager.containsUserKey(1L)).thenReturn(false);
-        when(userRepository.findByIdWithLocations(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(new UserDto(1L, "testuser")));
 
         UserDto result = userService.findById(1L);
 
@@ -116,31 +118,29 @@ class UserServiceTest {
     @Test
     @DisplayName("Должен бросать исключение, если пользователь по ID не найден")
     void shouldThrowExceptionWhenUserNotFoundById() {
-        when(cacheManager.containsUserKey(1L)).thenReturn(false);
-        when(userRepository.findByIdWithLocations(1L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> userService.findById(1L));
+        assertThrows(NotFoundException.class, () -> userService.findById(1L));
     }
 
     @Test
     @DisplayName("Должен возвращать пользователя по имени из кэша, если кэш содержит данные")
     void shouldReturnUserByUsernameFromCache() {
         String cacheKey = "findByUsername:testuser";
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(true);
         when(cacheManager.getUserList(cacheKey)).thenReturn(List.of(userDto));
 
         UserDto result = userService.findByUsername("testuser");
 
         assertEquals(userDto, result);
-        verify(userRepository, never()).findByUsername(any());
+        verify(userRepository, never()).findDtoByUsername(any());
     }
 
     @Test
     @DisplayName("Должен возвращать пользователя по имени из репозитория, если кэш пуст")
     void shouldReturnUserByUsernameFromRepository() {
         String cacheKey = "findByUsername:testuser";
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(false);
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(cacheManager.getUserList(cacheKey)).thenReturn(null);
+        when(userRepository.findDtoByUsername("testuser")).thenReturn(Optional.of(new UserDto(1L, "testuser")));
 
         UserDto result = userService.findByUsername("testuser");
 
@@ -153,10 +153,10 @@ class UserServiceTest {
     @DisplayName("Должен бросать исключение, если пользователь по имени не найден")
     void shouldThrowExceptionWhenUserNotFoundByUsername() {
         String cacheKey = "findByUsername:testuser";
-        when(cacheManager.containsUserListKey(cacheKey)).thenReturn(false);
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        when(cacheManager.getUserList(cacheKey)).thenReturn(null);
+        when(userRepository.findDtoByUsername("testuser")).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> userService.findByUsername("testuser"));
+        assertThrows(NotFoundException.class, () -> userService.findByUsername("testuser"));
     }
 
     @Test
@@ -167,26 +167,23 @@ class UserServiceTest {
         UserDto result = userService.create(userDto);
 
         assertEquals("testuser", result.getUsername());
-        verify(cacheManager).clearAllCache();
+        verify(cacheManager).invalidateNewUsers(List.of(result));
+        verify(cacheManager, never()).clearAllCache();
     }
 
     @Test
     @DisplayName("Должен успешно обновлять пользователя")
     void shouldUpdateUserSuccessfully() {
-        User updatedUser = mock(User.class);
-        when(updatedUser.getId()).thenReturn(1L);
-        when(updatedUser.getUsername()).thenReturn("updateduser");
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(userRepository.save(any(User.class))).thenReturn(updatedUser);
+        when(userRepository.save(any(User.class))).thenReturn(user(1L, "updateduser"));
 
-        UserDto updatedDto = mock(UserDto.class);
-        when(updatedDto.getId()).thenReturn(1L);
-        when(updatedDto.getUsername()).thenReturn("updateduser");
+        UserDto updatedDto = new UserDto(1L, "updateduser");
 
         UserDto result = userService.update(1L, updatedDto);
 
         assertEquals("updateduser", result.getUsername());
-        verify(cacheManager).clearAllCache();
+        verify(cacheManager).invalidateRenamedUser(1L, "testuser", "updateduser");
+        verify(cacheManager, never()).clearAllCache();
     }
 
     @Test
@@ -194,48 +191,53 @@ class UserServiceTest {
     void shouldThrowExceptionWhenUpdatingNonExistentUser() {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> userService.update(1L, userDto));
+        assertThrows(NotFoundException.class, () -> userService.update(1L, userDto));
     }
 
     @Test
     @DisplayName("Должен успешно удалять пользователя")
     void shouldDeleteUserSuccessfully() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        Location location = new Location();
+        location.setId(10L);
+        location.setCountry("Belarus");
+        location.setContinent("Europe");
+        location.setCity("Minsk");
+        user.setLocations(List.of(location));
+        when(userRepository.findByIdWithLocations(1L)).thenReturn(Optional.of(user));
 
         userService.delete(1L);
 
-        verify(userRepository).deleteById(1L);
-        verify(cacheManager).clearAllCache();
+        verify(userRepository).delete(user);
+        verify(cacheManager).invalidateDeletedUser(1L, "testuser", List.of(10L));
+        verify(locationStatisticsService).removed("Belarus", "Europe", "Minsk");
+        verify(cacheManager, never()).clearAllCache();
     }
 
     @Test
     @DisplayName("Должен бросать исключение при удалении несуществующего пользователя")
     void shouldThrowExceptionWhenDeletingNonExistentUser() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findByIdWithLocations(1L)).thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> userService.delete(1L));
+        assertThrows(NotFoundException.class, () -> userService.delete(1L));
     }
 
     @Test
     @DisplayName("Должен успешно создавать несколько пользователей")
     void shouldCreateMultipleUsersSuccessfully() {
-        UserDto userDto2 = mock(UserDto.class);
-        User user2 = mock(User.class);
-        when(userDto2.getUsername()).thenReturn("testuser2");
-        when(user2.getId()).thenReturn(2L);
-        when(user2.getUsername()).thenReturn("testuser2");
-
-        List<UserDto> userDtos = List.of(userDto, userDto2);
-        List<User> users = List.of(user, user2);
+        List<UserDto> userDtos = List.of(userDto, new UserDto(null, "testuser2"));
+        List<User> users = List.of(user, user(2L, "testuser2"));
 
-        when(userRepository.saveAll(any())).thenReturn(users);
+        when(batchInserter.insertAll(anyList(), any())).thenAnswer(invocation -> {
+            Function<User, UserDto> mapper = invocation.getArgument(1);
+            return users.stream().map(mapper).collect(Collectors.toList());
+        });
 
         List<UserDto> result = userService.createBulk(userDtos);
 
         assertEquals(2, result.size());
         assertEquals("testuser", result.get(0).getUsername());
         assertEquals("testuser2", result.get(1).getUsername());
-        verify(cacheManager).clearAllCache();
+        verify(cacheManager).invalidateNewUsers(result);
     }
 
     @Test
@@ -246,7 +248,14 @@ class UserServiceTest {
         List<UserDto> result = userService.createBulk(userDtos);
 
         assertTrue(result.isEmpty());
-        verify(userRepository, never()).saveAll(any());
-        verify(cacheManager, never()).clearAllCache();
+        verify(batchInserter, never()).insertAll(anyList(), any());
+        verify(cacheManager, never()).invalidateNewUsers(any());
+    }
+
+    private static User user(Long id, String username) {
+        User result = new User();
+        result.setId(id);
+        result.setUsername(username);
+        return result;
     }
 }
@@ -0,0 +1,92 @@
+package com.example.javalabaip.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    @DisplayName("Должен размыкаться, когда доля ошибок превышает порог")
+    void shouldOpenWhenFailureRateCrossesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 10, 4, Duration.ofMinutes(1));
+
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Должен учитывать только последние вызовы скользящего окна")
+    void shouldForgetCallsOutsideWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 4, 4, Duration.ofMinutes(1));
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Должен пропускать один пробный вызов после паузы и замыкаться при успехе")
+    void shouldCloseAfterSuccessfulTrialCall() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 2, Duration.ofMillis(50));
+        breaker.onFailure();
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Должен снова размыкаться при ошибке пробного вызова")
+    void shouldReopenAfterFailedTrialCall() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 2, Duration.ofMillis(50));
+        breaker.onFailure();
+        breaker.onFailure();
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Должен освобождать пробный вызов, завершившийся без результата")
+    void shouldReleaseTrialCallWithoutOutcome() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 2, Duration.ofMillis(50));
+        breaker.onFailure();
+        breaker.onFailure();
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+}
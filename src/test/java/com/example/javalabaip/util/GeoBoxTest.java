@@ -0,0 +1,66 @@
+package com.example.javalabaip.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoBoxTest {
+
+    @Test
+    @DisplayName("Должен вычислять расстояние по большому кругу")
+    void shouldComputeGreatCircleDistance() {
+        // Минск - Москва, около 675 км.
+        double distance = GeoBox.distanceKm(53.9, 27.5667, 55.7558, 37.6173);
+
+        assertEquals(675, distance, 5);
+        assertEquals(0, GeoBox.distanceKm(10, 20, 10, 20), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Прямоугольник вокруг точки должен содержать весь круг заданного радиуса")
+    void shouldCoverRadius() {
+        GeoBox box = GeoBox.around(53.9, 27.5667, 100);
+
+        assertEquals(100, GeoBox.distanceKm(53.9, 27.5667, box.getMaxLatitude(), 27.5667), 0.01);
+        assertEquals(100, GeoBox.distanceKm(53.9, 27.5667, box.getMinLatitude(), 27.5667), 0.01);
+        assertTrue(GeoBox.distanceKm(53.9, 27.5667, 53.9, box.getMaxLongitude()) >= 100);
+        assertEquals(1, box.split().size());
+    }
+
+    @Test
+    @DisplayName("Должен разбивать прямоугольник, пересекающий антимеридиан")
+    void shouldSplitAtAntimeridian() {
+        GeoBox box = GeoBox.around(0, 179.5, 200);
+
+        List<GeoBox> parts = box.split();
+
+        assertEquals(2, parts.size());
+        assertEquals(180, parts.get(0).getMaxLongitude());
+        assertEquals(-180, parts.get(1).getMinLongitude());
+        assertEquals(179.5, box.getCenterLongitude(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Должен охватывать все долготы, если круг содержит полюс")
+    void shouldCoverAllLongitudesNearPole() {
+        GeoBox box = GeoBox.around(89.5, 10, 100);
+
+        assertEquals(90, box.getMaxLatitude());
+        assertEquals(-180, box.getMinLongitude());
+        assertEquals(180, box.getMaxLongitude());
+    }
+
+    @Test
+    @DisplayName("Должен отклонять некорректные координаты")
+    void shouldRejectInvalidCoordinates() {
+        assertThrows(IllegalArgumentException.class, () -> GeoBox.around(91, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> GeoBox.around(0, 181, 10));
+        assertThrows(IllegalArgumentException.class, () -> GeoBox.around(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> GeoBox.of(10, 0, 5, 1));
+    }
+}
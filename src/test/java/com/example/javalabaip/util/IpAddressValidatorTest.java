@@ -0,0 +1,36 @@
+package com.example.javalabaip.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpAddressValidatorTest {
+
+    private final IpAddressValidator validator = IpAddressValidator.getInstance();
+
+    @Test
+    @DisplayName("Должен преобразовывать IPv4-адрес в беззнаковое 32-битное число")
+    void shouldParseToUnsignedValue() {
+        assertEquals(0L, IpAddressValidator.parseIpv4("0.0.0.0"));
+        assertEquals(0x08080808L, IpAddressValidator.parseIpv4("8.8.8.8"));
+        assertEquals(0xFFFFFFFFL, IpAddressValidator.parseIpv4("255.255.255.255"));
+        assertEquals(IpAddressValidator.parseIpv4("8.8.8.8"), IpAddressValidator.parseIpv4("008.8.8.8"));
+    }
+
+    @Test
+    @DisplayName("Должен отклонять октеты больше 255 и неполные адреса")
+    void shouldRejectInvalidAddresses() {
+        assertFalse(validator.isValidIpAddress("999.999.999.999"));
+        assertFalse(validator.isValidIpAddress("256.1.1.1"));
+        assertFalse(validator.isValidIpAddress("1.1.1"));
+        assertFalse(validator.isValidIpAddress("1.1.1.1.1"));
+        assertFalse(validator.isValidIpAddress("1..1.1"));
+        assertFalse(validator.isValidIpAddress("1.1.1.1 "));
+        assertFalse(validator.isValidIpAddress("0001.1.1.1"));
+        assertFalse(validator.isValidIpAddress(null));
+        assertTrue(validator.isValidIpAddress("192.168.1.1"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.javalabaip.util;
+
+import com.example.javalabaip.dto.GeoLocationDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IpRangeIndexTest {
+
+    private static final String DATABASE = """
+            start,end,city,country,continent,lat,lon,timezone
+            8.8.8.0,8.8.8.255,Mountain View,United States,North America,37.42,-122.08,America/Los_Angeles
+            1.0.0.0,1.0.0.255,"Brisbane, QLD",Australia,Oceania,-27.47,153.02,Australia/Brisbane
+            3758096384,4294967295,Reserved,Reserved,,,,
+            8.8.4.0,8.8.4.255,Mountain View,United States,North America,37.42,-122.08,America/Los_Angeles
+            """;
+
+    private IpRangeIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = IpRangeIndex.load(new StringReader(DATABASE));
+    }
+
+    @Test
+    @DisplayName("Должен находить диапазон, содержащий адрес")
+    void shouldFindContainingRange() {
+        assertEquals("Mountain View", index.find("8.8.8.8").getCity());
+        assertEquals("Brisbane, QLD", index.find("1.0.0.0").getCity());
+        assertEquals(-27.47, index.find("1.0.0.255").getLatitude());
+        assertEquals("Reserved", index.find("255.255.255.255").getCity());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать null для адреса вне диапазонов")
+    void shouldReturnNullOutsideRanges() {
+        assertNull(index.find("8.8.5.0"));
+        assertNull(index.find("0.0.0.1"));
+        assertNull(index.find("not-an-ip"));
+    }
+
+    @Test
+    @DisplayName("Должен переиспользовать одинаковые записи для разных диапазонов")
+    void shouldShareIdenticalRecords() {
+        GeoLocationDto first = index.find("8.8.8.8");
+        GeoLocationDto second = index.find("8.8.4.4");
+
+        assertSame(first, second);
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Должен отклонять пересекающиеся диапазоны")
+    void shouldRejectOverlappingRanges() {
+        String overlapping = """
+                10.0.0.0,10.0.0.255,A,A,,,,
+                10.0.0.128,10.0.1.0,B,B,,,,
+                """;
+
+        assertThrows(IllegalArgumentException.class, () -> IpRangeIndex.load(new StringReader(overlapping)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.javalabaip.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IpRangeTest {
+
+    @Test
+    @DisplayName("Должен вычислять границы диапазона по CIDR")
+    void shouldComputeCidrBounds() {
+        IpRange range = IpRange.ofCidr("10.1.2.3/8");
+
+        assertEquals(IpAddressValidator.parseIpv4("10.0.0.0"), range.getStart());
+        assertEquals(IpAddressValidator.parseIpv4("10.255.255.255"), range.getEnd());
+    }
+
+    @Test
+    @DisplayName("Должен поддерживать префиксы /0 и /32")
+    void shouldHandleEdgePrefixes() {
+        assertEquals(0L, IpRange.ofCidr("1.2.3.4/0").getStart());
+        assertEquals(0xFFFFFFFFL, IpRange.ofCidr("1.2.3.4/0").getEnd());
+        assertEquals(IpRange.ofCidr("1.2.3.4/32").getStart(), IpRange.ofCidr("1.2.3.4/32").getEnd());
+    }
+
+    @Test
+    @DisplayName("Должен отклонять некорректные диапазоны")
+    void shouldRejectInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> IpRange.ofCidr("10.0.0.0"));
+        assertThrows(IllegalArgumentException.class, () -> IpRange.ofCidr("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> IpRange.ofCidr("10.0.0/8"));
+        assertThrows(IllegalArgumentException.class, () -> IpRange.of("10.0.0.2", "10.0.0.1"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.javalabaip.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCounterTest {
+
+    private final RequestCounter requestCounter = new RequestCounter();
+
+    @Test
+    @DisplayName("Должен считать общее число запросов и запросы по операциям без потерь при конкурентном доступе")
+    void shouldCountConcurrentIncrements() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    requestCounter.increment();
+                    requestCounter.increment(j % 2 == 0 ? "findAll" : "findById");
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(80_000, requestCounter.getCount());
+        assertEquals(Map.of("findAll", 40_000L, "findById", 40_000L), requestCounter.getOperationCounts());
+    }
+
+    @Test
+    @DisplayName("Должен сбрасывать общий счетчик и счетчики операций одновременно")
+    void shouldResetAllCounters() {
+        requestCounter.increment();
+        requestCounter.increment("findAll");
+
+        requestCounter.reset();
+
+        assertEquals(0, requestCounter.getCount());
+        assertTrue(requestCounter.getOperationCounts().isEmpty());
+    }
+}